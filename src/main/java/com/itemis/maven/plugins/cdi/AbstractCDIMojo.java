@@ -1,12 +1,15 @@
 package com.itemis.maven.plugins.cdi;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.model.Dependency;
@@ -29,18 +32,29 @@ import org.jboss.weld.environment.se.WeldContainer;
 
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.itemis.maven.plugins.cdi.annotations.MojoProduces;
 import com.itemis.maven.plugins.cdi.annotations.ProcessingStep;
 import com.itemis.maven.plugins.cdi.internal.beans.CdiBeanWrapper;
 import com.itemis.maven.plugins.cdi.internal.beans.CdiProducerBean;
+import com.itemis.maven.plugins.cdi.internal.util.BeanProfiler;
+import com.itemis.maven.plugins.cdi.internal.util.BootstrapReport;
 import com.itemis.maven.plugins.cdi.internal.util.CDIUtil;
+import com.itemis.maven.plugins.cdi.internal.util.FlightRecorderEvent;
 import com.itemis.maven.plugins.cdi.internal.util.MavenUtil;
+import com.itemis.maven.plugins.cdi.internal.util.TraceRecorder;
+import com.itemis.maven.plugins.cdi.internal.util.TraceRecorder.Span;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.ContentionMonitor;
 import com.itemis.maven.plugins.cdi.internal.util.workflow.ProcessingWorkflow;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.StepDurationHistory;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.StepStatistics;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowCache;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowCheckpoint;
 import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowExecutor;
 import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowUtil;
-import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowValidator;
 import com.itemis.maven.plugins.cdi.logging.MavenLogWrapper;
 
 import jakarta.enterprise.event.Observes;
@@ -104,26 +118,83 @@ import jakarta.inject.Named;
  * <li>The name of the workflow descriptor file must match the name of the goal. F.i. goal="perform"
  * workflow-file="META-INF/workflows/perform"</li>
  * <li>A simple workflow lists just all processing step ids in the respective order (each id on a new line).</li>
- * <li>Steps that are encapsuled in <code>parallel{}</code> are executed in parallel. All other steps will be executed
- * sequentially.</li>
- * <li>A line starting with a <code>#</code> will be treated as a comment.</li>
+ * <li>A step id can be followed by a qualifier in brackets, f.i. <code>deploy[remote]</code>, and by a data block
+ * assigning the execution and rollback data of the step. Each assignment occupies the rest of its line:
+ * <code>data = ...</code> and <code>rollbackData = ...</code>.</li>
+ * <li>Steps that are encapsuled in <code>parallel{}</code> are executed in parallel. Steps that are encapsuled in
+ * <code>pipeline{}</code> are executed concurrently and stream data to each other. All other steps will be executed
+ * sequentially. Blocks cannot be nested.</li>
+ * <li><code>include &lt;fragment&gt;</code> inlines the steps of a workflow fragment at its position. Fragments are
+ * resolved relative to the descriptor, as absolute paths or in <i>META-INF/workflows</i> on the classpath. A fragment
+ * contains steps, parallel and pipeline blocks and includes but no <code>try</code> or <code>finally</code>.</li>
+ * <li>The whole workflow can be wrapped in <code>try{} finally{}</code>. The steps of the finally-block are executed
+ * after the workflow, regardless of its result. Only steps and includes of fragments without blocks are allowed in
+ * the finally-block. Only comments may precede the try-block and nothing may follow the finally-block.</li>
+ * <li>A <code>#</code> starts a comment up to the end of the line anywhere except within qualifiers and data
+ * values.</li>
  * </ul>
  *
+ * <h2>Checkpoints</h2>
+ * Using <code>-Dcheckpoint</code> each completed step is recorded in a checkpoint journal under
+ * <i>${project.build.directory}/workflow-state</i> (<code>-DworkflowStateDirectory</code>). Completed steps are not
+ * rolled back in case of a failure. A later execution using <code>-Dresume</code> skips all steps of the journal and
+ * continues the workflow from the point of failure. Steps can opt out of skipping using
+ * {@link ProcessingStep#resumable()}.
+ *
+ * <h2>Parallel Execution</h2>
+ * By default each step of a <code>parallel{}</code> block is executed on its own thread. Use
+ * <code>-DworkflowThreads=n</code> to limit the number of threads per block. Using <code>-DdurationHistory</code> the
+ * durations of parallel steps are recorded in the workflow state directory and the longest running steps are submitted
+ * first.<br>
+ * Using <code>-DadaptiveParallelism</code> all parallel blocks share one pool whose size is tuned between
+ * <code>-DminWorkflowThreads</code> and <code>-DworkflowThreads</code> based on the observed CPU utilization.<br>
+ * Steps declaring a {@link ProcessingStep#costClass() cost class} are dispatched to a shared CPU pool sized to the
+ * number of cores, a shared I/O pool (<code>-DioWorkflowThreads</code>) or the main thread instead.<br>
+ * The steps of a <code>pipeline{}</code> block always run concurrently on dedicated threads and stream data to each
+ * other through the {@link Channel channels} of their {@link ExecutionContext execution contexts}.
+ *
+ * <h2>Observing the Execution</h2>
+ * {@link WorkflowListener Workflow listeners} provided as CDI beans or registered for the {@link ServiceLoader} are
+ * notified about the start and end of the workflow and of each step, about failures and rollbacks.<br>
+ * Using <code>-DcdiTrace=&lt;file&gt;</code> a timeline of the dependency resolution, the container bootstrap and the
+ * workflow execution is written in the trace event format which can be opened using <code>chrome://tracing</code> or
+ * <a href="https://ui.perfetto.dev">Perfetto</a>.<br>
+ * Using <code>-DstallTimeout=&lt;seconds&gt;</code> the running steps and the stack traces of their threads are logged
+ * whenever no step starts or finishes within the given time.<br>
+ * Using <code>-DstepStats</code> the wall time, CPU time and allocated bytes of each step are printed as a table at the
+ * end of the execution.<br>
+ * Using <code>-DcontentionReport</code> the blocked and waited times of each step and the most contended locks of the
+ * step threads are printed at the end of the execution.<br>
+ * Using <code>-DbootstrapReport</code> the time and counts of each bootstrap phase, from the resolution of the plugin
+ * dependencies up to the instantiation of the step beans, are printed before the workflow is executed.<br>
+ * Using <code>-DprofileBeans</code> the construction, injection, post-construct and producer times of all beans are
+ * recorded and the <code>-DprofileBeansTop=n</code> (default 10) most expensive beans are printed at the end of the
+ * execution.
+ *
  * <h2>A Sample Workflow</h2>
  * goal=perform
  * workflow-file=META-INF/workflows/perform
  *
  * <pre>
- * init
- * # The following steps can be run in parallel since they do not modify the project but only perform some checks
- * parallel {
- *   checkUser
- *   checkConnection
- *   checkAether
+ * try {
+ *   init
+ *   # The following steps can be run in parallel since they do not modify the project but only perform some checks
+ *   parallel {
+ *     checkUser
+ *     checkConnection # checks the repository connection
+ *     checkAether
+ *   }
+ *   compute {
+ *     data = version=&gt;&#64;{project.version}
+ *   }
+ *   upload[remote] {
+ *     data = https://repo.example.com
+ *     rollbackData = delete
+ *   }
+ *   include validation
+ * } finally {
+ *   cleanup
  * }
- * compute
- * upload
- * validate
  * </pre>
  *
  * @author <a href="mailto:stanley.hillner@itemis.de">Stanley Hillner</a>
@@ -154,6 +225,51 @@ public class AbstractCDIMojo extends AbstractMojo implements Extension {
   @Parameter(property = "workflow")
   private File workflowDescriptor;
 
+  @Parameter(defaultValue = "false", property = "checkpoint")
+  private boolean checkpoint;
+
+  @Parameter(defaultValue = "false", property = "resume")
+  private boolean resume;
+
+  @Parameter(defaultValue = "${project.build.directory}/workflow-state", property = "workflowStateDirectory")
+  private File workflowStateDirectory;
+
+  @Parameter(defaultValue = "0", property = "workflowThreads")
+  private int workflowThreads;
+
+  @Parameter(defaultValue = "false", property = "durationHistory")
+  private boolean durationHistory;
+
+  @Parameter(defaultValue = "false", property = "adaptiveParallelism")
+  private boolean adaptiveParallelism;
+
+  @Parameter(defaultValue = "1", property = "minWorkflowThreads")
+  private int minWorkflowThreads;
+
+  @Parameter(defaultValue = "64", property = "ioWorkflowThreads")
+  private int ioWorkflowThreads;
+
+  @Parameter(defaultValue = "0", property = "stallTimeout")
+  private int stallTimeout;
+
+  @Parameter(property = "cdiTrace")
+  private File traceFile;
+
+  @Parameter(defaultValue = "false", property = "stepStats")
+  private boolean stepStats;
+
+  @Parameter(defaultValue = "false", property = "contentionReport")
+  private boolean contentionReport;
+
+  @Parameter(defaultValue = "false", property = "bootstrapReport")
+  private boolean printBootstrapReport;
+
+  @Parameter(defaultValue = "false", property = "profileBeans")
+  private boolean profileBeans;
+
+  @Parameter(defaultValue = "10", property = "profileBeansTop")
+  private int profileBeansTop;
+
   @Parameter(defaultValue = "true", property = "enableLogTimestamps")
   @MojoProduces
   @Named("enableLogTimestamps")
@@ -163,6 +279,8 @@ public class AbstractCDIMojo extends AbstractMojo implements Extension {
 
   private Map<String, ProcessingStep> allAvailableProcessingSteps = Maps.newHashMap();
 
+  private BootstrapReport bootstrapReport = BootstrapReport.disabled();
+
   @MojoProduces
   public final MavenLogWrapper createLogWrapper() {
     MavenLogWrapper log = new MavenLogWrapper(getLog());
@@ -187,38 +305,138 @@ public class AbstractCDIMojo extends AbstractMojo implements Extension {
     }
     System.setProperty("org.slf4j.simpleLogger.log.org.jboss.weld", logLevel);
 
+    TraceRecorder trace = this.traceFile != null ? new TraceRecorder() : TraceRecorder.disabled();
+    this.bootstrapReport = this.printBootstrapReport ? new BootstrapReport() : BootstrapReport.disabled();
     Weld weld = new Weld();
     weld.addExtension(this);
-    addPluginDependencies(weld);
+    BeanProfiler beanProfiler = null;
+    if (this.profileBeans) {
+      beanProfiler = new BeanProfiler();
+      weld.addExtension(beanProfiler);
+    }
+    addPluginDependencies(weld, trace);
     WeldContainer weldContainer = null;
+    StepStatistics statistics = null;
+    ContentionMonitor contentionMonitor = null;
     try {
-      weldContainer = weld.initialize();
+      try (Span span = trace.begin(TraceRecorder.CATEGORY_CDI, "weld.initialize");
+          FlightRecorderEvent.Event event = FlightRecorderEvent.WELD_BOOTSTRAP.begin();
+          BootstrapReport.Phase phase = this.bootstrapReport.enter(BootstrapReport.PHASE_WELD_INITIALIZATION)) {
+        weldContainer = weld.initialize();
+      }
       if (System.getProperty(SYSPROP_PRINT_STEPS) != null) {
         WorkflowUtil.printAvailableSteps(this.allAvailableProcessingSteps, createLogWrapper());
         return;
       }
 
-      WorkflowUtil.addExecutionContexts(getWorkflow());
-      Map<String, CDIMojoProcessingStep> processingSteps = getAllProcessingSteps(weldContainer);
+      Map<String, ExecutionContext> executionContexts = WorkflowUtil.createExecutionContexts(getWorkflow());
+      Map<String, CDIMojoProcessingStep> processingSteps;
+      try (Span span = trace.begin(TraceRecorder.CATEGORY_CDI, "create processing steps");
+          BootstrapReport.Phase phase = this.bootstrapReport.enter(BootstrapReport.PHASE_STEP_INSTANTIATION)) {
+        processingSteps = getAllProcessingSteps(weldContainer);
+      }
+      this.bootstrapReport.count(BootstrapReport.PHASE_STEP_INSTANTIATION, "step beans", processingSteps.size());
+      printBootstrapReport();
 
       PluginParameterExpressionEvaluator expressionEvaluator = new PluginParameterExpressionEvaluator(this._session,
           this._mojoExecution);
-      WorkflowExecutor executor = new WorkflowExecutor(getWorkflow(), processingSteps, getLog(), expressionEvaluator);
+      WorkflowExecutor executor = new WorkflowExecutor(getWorkflow(), executionContexts, processingSteps, getLog(),
+          expressionEvaluator);
+      if (this.checkpoint || this.resume) {
+        executor.setCheckpoint(
+            WorkflowCheckpoint.open(this.workflowStateDirectory, getGoalName(), this.resume, getLog()));
+      }
+      executor.setMaxParallelism(this.workflowThreads);
+      if (this.adaptiveParallelism) {
+        executor.enableAdaptiveParallelism(this.minWorkflowThreads);
+      }
+      executor.setIoParallelism(this.ioWorkflowThreads);
+      executor.setStallTimeout(this.stallTimeout, TimeUnit.SECONDS);
+      if (this.durationHistory) {
+        executor.setDurationHistory(StepDurationHistory.load(this.workflowStateDirectory, getGoalName(), getLog()));
+      }
+      List<WorkflowListener> listeners = getWorkflowListeners(weldContainer);
+      if (trace.isEnabled()) {
+        listeners.add(trace);
+      }
+      if (this.stepStats) {
+        statistics = new StepStatistics();
+        listeners.add(statistics);
+      }
+      if (this.contentionReport) {
+        contentionMonitor = new ContentionMonitor();
+        listeners.add(contentionMonitor);
+      }
+      executor.setListeners(listeners);
       executor.validate(!this._settings.isOffline());
       executor.execute();
     } finally {
       if (weldContainer != null && weldContainer.isRunning()) {
-        weldContainer.shutdown();
+        try (Span span = trace.begin(TraceRecorder.CATEGORY_CDI, "weld.shutdown")) {
+          weldContainer.shutdown();
+        }
+      }
+      writeTrace(trace);
+      printStepStatistics(statistics);
+      printContentionReport(contentionMonitor);
+      printBeanProfile(beanProfiler);
+    }
+  }
+
+  private void printBootstrapReport() {
+    if (this.bootstrapReport.isEnabled()) {
+      getLog().info("Bootstrap phases of goal '" + getGoalName() + "':");
+      for (String line : Splitter.on('\n').split(this.bootstrapReport.render())) {
+        getLog().info(line);
+      }
+    }
+  }
+
+  private void printBeanProfile(BeanProfiler beanProfiler) {
+    if (beanProfiler != null && beanProfiler.size() > 0) {
+      getLog().info("The " + this.profileBeansTop + " most expensive beans of goal '" + getGoalName() + "':");
+      for (String line : Splitter.on('\n').split(beanProfiler.render(this.profileBeansTop))) {
+        getLog().info(line);
+      }
+    }
+  }
+
+  private void printContentionReport(ContentionMonitor contentionMonitor) {
+    if (contentionMonitor != null && contentionMonitor.size() > 0) {
+      getLog().info("Thread contention of goal '" + getGoalName() + "':");
+      for (String line : Splitter.on('\n').split(contentionMonitor.render(10))) {
+        getLog().info(line);
+      }
+    }
+  }
+
+  private void printStepStatistics(StepStatistics statistics) {
+    if (statistics != null && statistics.size() > 0) {
+      getLog().info("Step statistics of goal '" + getGoalName() + "':");
+      for (String line : Splitter.on('\n').split(statistics.render())) {
+        getLog().info(line);
+      }
+    }
+  }
+
+  private void writeTrace(TraceRecorder trace) {
+    if (trace.isEnabled()) {
+      try {
+        trace.write(this.traceFile);
+        getLog().info("The execution trace has been written to " + this.traceFile.getAbsolutePath()
+            + ". Open it using chrome://tracing or https://ui.perfetto.dev");
+      } catch (IOException e) {
+        getLog().warn("Unable to write the execution trace to " + this.traceFile.getAbsolutePath(), e);
       }
     }
   }
 
   private ProcessingWorkflow getWorkflow() throws MojoExecutionException, MojoFailureException {
     if (this.workflow == null) {
-      List<String> trimmedWorkflowLines = WorkflowUtil.getTrimmedWorkflowLines(getGoalName(), getPluginDescriptor(),
-          Optional.fromNullable(this.workflowDescriptor), createLogWrapper());
-      WorkflowValidator.validateSyntactically(trimmedWorkflowLines);
-      this.workflow = WorkflowUtil.parseWorkflow(trimmedWorkflowLines, getGoalName());
+      // custom workflows are parsed once per session and shared by the executions for all modules
+      this.workflow = WorkflowUtil.parseWorkflow(getGoalName(), getPluginDescriptor(),
+          Optional.fromNullable(this.workflowDescriptor), WorkflowCache.get(this._repoSystemSession),
+          createLogWrapper());
     }
     return this.workflow;
   }
@@ -231,21 +449,31 @@ public class AbstractCDIMojo extends AbstractMojo implements Extension {
     Class<?> type = event.getAnnotatedType().getJavaClass();
     ProcessingStep annotation = type.getAnnotation(ProcessingStep.class);
     if (annotation != null) {
-      // adding the step to the list of all available processing steps
-      String id = annotation.id();
-      Preconditions.checkState(!this.allAvailableProcessingSteps.containsKey(id),
-          "The processing step id '" + id + "' is not unique!");
-      this.allAvailableProcessingSteps.put(id, annotation);
-
-      // vetoing the bean discovery of a step that is not part of the current workflow
-      // this prevents the issue that data shall be injected that isn't produced anywhere!
-      ProcessingWorkflow workflow = getWorkflow();
-      if (!workflow.containsStep(annotation.id())) {
-        event.veto();
+      try (BootstrapReport.Phase phase = this.bootstrapReport.enter(BootstrapReport.PHASE_STEP_VETOES)) {
+        vetoUnusedStep(event, annotation);
       }
     }
   }
 
+  private void vetoUnusedStep(ProcessAnnotatedType<?> event, ProcessingStep annotation)
+      throws MojoExecutionException, MojoFailureException {
+    // adding the step to the list of all available processing steps
+    String id = annotation.id();
+    Preconditions.checkState(!this.allAvailableProcessingSteps.containsKey(id),
+        "The processing step id '" + id + "' is not unique!");
+    this.allAvailableProcessingSteps.put(id, annotation);
+
+    // vetoing the bean discovery of a step that is not part of the current workflow
+    // this prevents the issue that data shall be injected that isn't produced anywhere!
+    ProcessingWorkflow workflow = getWorkflow();
+    if (!workflow.containsStep(annotation.id())) {
+      event.veto();
+      this.bootstrapReport.count(BootstrapReport.PHASE_STEP_VETOES, "steps vetoed", 1);
+    } else {
+      this.bootstrapReport.count(BootstrapReport.PHASE_STEP_VETOES, "steps kept", 1);
+    }
+  }
+
   @SuppressWarnings("unused")
   // will be called automatically by the CDI container once the bean discovery has finished
   private void processMojoCdiProducerFields(@Observes AfterBeanDiscovery event, BeanManager beanManager)
@@ -260,14 +488,17 @@ public class AbstractCDIMojo extends AbstractMojo implements Extension {
       cls = cls.getSuperclass();
     }
 
-    for (Field f : fields) {
-      if (f.isAnnotationPresent(MojoProduces.class)) {
-        try {
-          f.setAccessible(true);
-          event.addBean(
-              new CdiBeanWrapper<Object>(f.get(this), f.getGenericType(), f.getType(), CDIUtil.getCdiQualifiers(f)));
-        } catch (Throwable t) {
-          throw new MojoExecutionException("Could not process CDI producer field of the Mojo.", t);
+    try (BootstrapReport.Phase phase = this.bootstrapReport.enter(BootstrapReport.PHASE_PRODUCER_REGISTRATION)) {
+      for (Field f : fields) {
+        if (f.isAnnotationPresent(MojoProduces.class)) {
+          try {
+            f.setAccessible(true);
+            event.addBean(new CdiBeanWrapper<Object>(f.get(this), f.getGenericType(), f.getType(),
+                CDIUtil.getCdiQualifiers(f)));
+          } catch (Throwable t) {
+            throw new MojoExecutionException("Could not process CDI producer field of the Mojo.", t);
+          }
+          this.bootstrapReport.count(BootstrapReport.PHASE_PRODUCER_REGISTRATION, "producer fields", 1);
         }
       }
     }
@@ -287,26 +518,35 @@ public class AbstractCDIMojo extends AbstractMojo implements Extension {
       cls = cls.getSuperclass();
     }
 
-    for (Method m : methods) {
-      if (m.getReturnType() != Void.class && m.isAnnotationPresent(MojoProduces.class)) {
-        try {
-          event.addBean(new CdiProducerBean(m, this, beanManager, m.getGenericReturnType(), m.getReturnType(),
-              CDIUtil.getCdiQualifiers(m)));
-        } catch (Throwable t) {
-          throw new MojoExecutionException("Could not process CDI producer method of the Mojo.", t);
+    try (BootstrapReport.Phase phase = this.bootstrapReport.enter(BootstrapReport.PHASE_PRODUCER_REGISTRATION)) {
+      for (Method m : methods) {
+        if (m.getReturnType() != Void.class && m.isAnnotationPresent(MojoProduces.class)) {
+          try {
+            event.addBean(new CdiProducerBean(m, this, beanManager, m.getGenericReturnType(), m.getReturnType(),
+                CDIUtil.getCdiQualifiers(m)));
+          } catch (Throwable t) {
+            throw new MojoExecutionException("Could not process CDI producer method of the Mojo.", t);
+          }
+          this.bootstrapReport.count(BootstrapReport.PHASE_PRODUCER_REGISTRATION, "producer methods", 1);
         }
       }
     }
   }
 
-  private void addPluginDependencies(Weld weld) throws MojoExecutionException {
+  private void addPluginDependencies(Weld weld, TraceRecorder trace) throws MojoExecutionException {
     PluginDescriptor pluginDescriptor = getPluginDescriptor();
     List<Dependency> dependencies = pluginDescriptor.getPlugin().getDependencies();
     for (Dependency d : dependencies) {
-      Optional<File> f = MavenUtil.resolvePluginDependency(d, this._pluginRepos, this._resolver,
-          this._repoSystemSession);
+      Optional<File> f;
+      try (Span span = trace.begin(TraceRecorder.CATEGORY_MAVEN, "resolve " + d.getManagementKey());
+          BootstrapReport.Phase phase = this.bootstrapReport.enter(BootstrapReport.PHASE_DEPENDENCY_RESOLUTION)) {
+        f = MavenUtil.resolvePluginDependency(d, this._pluginRepos, this._resolver, this._repoSystemSession);
+      }
+      this.bootstrapReport.count(BootstrapReport.PHASE_DEPENDENCY_RESOLUTION, "dependencies", 1);
       if (f.isPresent()) {
-        CDIUtil.addAllClasses(weld, getClass().getClassLoader(), f.get(), getLog());
+        try (Span span = trace.begin(TraceRecorder.CATEGORY_CDI, "scan " + f.get().getName())) {
+          CDIUtil.addAllClasses(weld, getClass().getClassLoader(), f.get(), getLog(), this.bootstrapReport);
+        }
       } else {
         throw new MojoExecutionException("Could not resolve the following plugin dependency: " + d);
       }
@@ -327,6 +567,24 @@ public class AbstractCDIMojo extends AbstractMojo implements Extension {
     return steps;
   }
 
+  private List<WorkflowListener> getWorkflowListeners(WeldContainer weldContainer) {
+    List<WorkflowListener> listeners = Lists.newArrayList(
+        CDIUtil.getAllBeansOfType(weldContainer, WorkflowListener.class));
+    int beanListeners = listeners.size();
+    for (WorkflowListener listener : ServiceLoader.load(WorkflowListener.class, getClass().getClassLoader())) {
+      // listeners that are CDI beans and registered for the ServiceLoader must only be notified once, bean instances
+      // may be subclasses created by the container
+      boolean isBean = false;
+      for (WorkflowListener beanListener : listeners.subList(0, beanListeners)) {
+        isBean |= listener.getClass().isInstance(beanListener);
+      }
+      if (!isBean) {
+        listeners.add(listener);
+      }
+    }
+    return listeners;
+  }
+
   private String getGoalName() {
     PluginDescriptor pluginDescriptor = getPluginDescriptor();
     for (MojoDescriptor mojoDescriptor : pluginDescriptor.getMojos()) {
@@ -0,0 +1,82 @@
+package com.itemis.maven.plugins.cdi;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import com.google.common.base.Optional;
+
+/**
+ * A typed, bounded channel through which a processing step streams data to another step while both are running, f.i.
+ * the steps of a <code>pipeline{}</code> block. Channels are obtained using
+ * {@link ExecutionContext#getChannel(String, Class)}.<br>
+ * <br>
+ * Sending blocks while the channel is full (backpressure) and receiving blocks while the channel is empty. The
+ * producing step closes the channel once it has sent all items. A channel that has been obtained by a step without
+ * receiving from it is closed automatically as soon as the step has finished. If any step of the workflow fails, all
+ * channels are aborted and blocked senders or receivers fail immediately.
+ *
+ * <pre>
+ * // producer
+ * Channel&lt;File&gt; artifacts = context.getChannel("artifacts", File.class);
+ * for (File f : collectArtifacts()) {
+ *   artifacts.send(f);
+ * }
+ * artifacts.close();
+ *
+ * // consumer
+ * Channel&lt;File&gt; artifacts = context.getChannel("artifacts", File.class);
+ * for (Optional&lt;File&gt; f = artifacts.receive(); f.isPresent(); f = artifacts.receive()) {
+ *   upload(f.get());
+ * }
+ * </pre>
+ *
+ * @param <T> the type of the items of this channel.
+ * @since 4.0.3
+ */
+public final class Channel<T> {
+  private final Channels.Buffer buffer;
+  private final Class<T> type;
+  private volatile boolean received;
+
+  Channel(Channels.Buffer buffer, Class<T> type) {
+    this.buffer = buffer;
+    this.type = type;
+  }
+
+  public String getName() {
+    return this.buffer.getName();
+  }
+
+  /**
+   * Sends an item through the channel, waiting for free capacity if the channel is full.
+   *
+   * @param item the item to send.
+   * @throws MojoExecutionException if the channel has already been closed or aborted or if the current thread has
+   *           been interrupted while waiting.
+   */
+  public void send(T item) throws MojoExecutionException {
+    this.buffer.send(this.type.cast(item));
+  }
+
+  /**
+   * Receives the next item of the channel, waiting for an item if the channel is empty.
+   *
+   * @return the next item or an absent value if the channel has been closed and all items have been received.
+   * @throws MojoExecutionException if the channel has been aborted or if the current thread has been interrupted while
+   *           waiting.
+   */
+  public Optional<T> receive() throws MojoExecutionException {
+    this.received = true;
+    return Optional.fromNullable(this.type.cast(this.buffer.receive()));
+  }
+
+  /**
+   * Closes the channel. All items that have already been sent can still be received.
+   */
+  public void close() {
+    this.buffer.close();
+  }
+
+  boolean isReceived() {
+    return this.received;
+  }
+}
@@ -0,0 +1,195 @@
+package com.itemis.maven.plugins.cdi;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * The registry of all {@link Channel channels} of a workflow execution. An instance is created by the workflow executor
+ * for each execution and bound to the execution contexts of all steps.
+ *
+ * @since 4.0.3
+ */
+public final class Channels {
+  /**
+   * The default number of items a channel can buffer before sending blocks.
+   */
+  public static final int DEFAULT_CAPACITY = 256;
+
+  private final Map<String, Buffer> buffers;
+  private final Map<String, List<Channel<?>>> stepChannels;
+  private Throwable abortCause;
+
+  public Channels() {
+    this.buffers = Maps.newHashMap();
+    this.stepChannels = Maps.newHashMap();
+  }
+
+  synchronized <T> Channel<T> getChannel(String compositeStepId, String name, Class<T> type, int capacity) {
+    Preconditions.checkArgument(capacity > 0, "The capacity of channel '" + name + "' must be positive.");
+    Buffer buffer = this.buffers.get(name);
+    if (buffer == null) {
+      buffer = new Buffer(name, type, capacity);
+      this.buffers.put(name, buffer);
+    }
+    Preconditions.checkState(buffer.type == type, "The channel '" + name + "' transports items of type "
+        + buffer.type.getName() + " but has been requested for type " + type.getName() + ".");
+
+    Channel<T> channel = new Channel<T>(buffer, type);
+    List<Channel<?>> channels = this.stepChannels.get(compositeStepId);
+    if (channels == null) {
+      channels = Lists.newArrayList();
+      this.stepChannels.put(compositeStepId, channels);
+    }
+    channels.add(channel);
+    return channel;
+  }
+
+  /**
+   * Closes all channels that have been obtained but not received from by the finished step.
+   *
+   * @param compositeStepId the composite id of the finished step.
+   */
+  public synchronized void stepCompleted(String compositeStepId) {
+    List<Channel<?>> channels = this.stepChannels.remove(compositeStepId);
+    if (channels != null) {
+      for (Channel<?> channel : channels) {
+        if (!channel.isReceived()) {
+          channel.close();
+        }
+      }
+    }
+  }
+
+  /**
+   * Aborts all channels, releasing all blocked senders and receivers with an exception. Only the cause of the first
+   * abortion is retained.
+   *
+   * @param cause the cause of the abortion.
+   */
+  public synchronized void abort(Throwable cause) {
+    if (this.abortCause == null) {
+      this.abortCause = cause;
+    }
+    for (Buffer buffer : this.buffers.values()) {
+      buffer.abort(this.abortCause);
+    }
+  }
+
+  /**
+   * @param t an exception thrown by a step.
+   * @return {@code true} if the exception has been thrown by an aborted channel and is thus only a consequence of the
+   *         failure that caused the abortion.
+   */
+  public synchronized boolean isAbortFailure(Throwable t) {
+    return this.abortCause != null && t instanceof MojoExecutionException && t.getCause() == this.abortCause;
+  }
+
+  static final class Buffer {
+    private final String name;
+    private final Class<?> type;
+    private final int capacity;
+    private final ArrayDeque<Object> items;
+    private final ReentrantLock lock;
+    private final Condition notEmpty;
+    private final Condition notFull;
+    private boolean closed;
+    private Throwable abortCause;
+
+    private Buffer(String name, Class<?> type, int capacity) {
+      this.name = name;
+      this.type = type;
+      this.capacity = capacity;
+      this.items = new ArrayDeque<Object>();
+      this.lock = new ReentrantLock();
+      this.notEmpty = this.lock.newCondition();
+      this.notFull = this.lock.newCondition();
+    }
+
+    String getName() {
+      return this.name;
+    }
+
+    void send(Object item) throws MojoExecutionException {
+      Preconditions.checkNotNull(item, "Channels do not accept null items.");
+      this.lock.lock();
+      try {
+        while (this.items.size() >= this.capacity && this.abortCause == null && !this.closed) {
+          this.notFull.await();
+        }
+        checkNotAborted();
+        if (this.closed) {
+          throw new MojoExecutionException("Unable to send an item through channel '" + this.name
+              + "' since the channel has already been closed.");
+        }
+        this.items.addLast(item);
+        this.notEmpty.signal();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new MojoExecutionException("Interrupted while sending an item through channel '" + this.name + "'.", e);
+      } finally {
+        this.lock.unlock();
+      }
+    }
+
+    Object receive() throws MojoExecutionException {
+      this.lock.lock();
+      try {
+        while (this.items.isEmpty() && this.abortCause == null && !this.closed) {
+          this.notEmpty.await();
+        }
+        checkNotAborted();
+        Object item = this.items.pollFirst();
+        if (item != null) {
+          this.notFull.signal();
+        }
+        return item;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new MojoExecutionException("Interrupted while receiving an item from channel '" + this.name + "'.", e);
+      } finally {
+        this.lock.unlock();
+      }
+    }
+
+    void close() {
+      this.lock.lock();
+      try {
+        this.closed = true;
+        this.notEmpty.signalAll();
+        this.notFull.signalAll();
+      } finally {
+        this.lock.unlock();
+      }
+    }
+
+    void abort(Throwable cause) {
+      this.lock.lock();
+      try {
+        if (this.abortCause == null) {
+          this.abortCause = cause;
+        }
+        this.items.clear();
+        this.notEmpty.signalAll();
+        this.notFull.signalAll();
+      } finally {
+        this.lock.unlock();
+      }
+    }
+
+    private void checkNotAborted() throws MojoExecutionException {
+      if (this.abortCause != null) {
+        throw new MojoExecutionException(
+            "The channel '" + this.name + "' has been aborted due to a failure of the workflow.", this.abortCause);
+      }
+    }
+  }
+}
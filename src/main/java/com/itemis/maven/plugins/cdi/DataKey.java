@@ -0,0 +1,63 @@
+package com.itemis.maven.plugins.cdi;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+
+/**
+ * A typed key for the {@link WorkflowData workflow-wide data} shared between the processing steps of a workflow.
+ * Keys are usually declared as constants by the steps producing the data:
+ *
+ * <pre>
+ * public static final DataKey&lt;String&gt; RELEASE_VERSION = DataKey.of("releaseVersion", String.class);
+ * </pre>
+ *
+ * Two keys are equal if their names and types are equal.
+ *
+ * @param <T> the type of the data stored under this key.
+ * @since 4.0.3
+ */
+public final class DataKey<T> {
+  private final String name;
+  private final Class<T> type;
+
+  private DataKey(String name, Class<T> type) {
+    this.name = Preconditions.checkNotNull(name, "The name of a data key must not be null.");
+    this.type = Preconditions.checkNotNull(type, "The type of a data key must not be null.");
+  }
+
+  public static <T> DataKey<T> of(String name, Class<T> type) {
+    return new DataKey<T>(name, type);
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  public Class<T> getType() {
+    return this.type;
+  }
+
+  T cast(Object value) {
+    return this.type.cast(value);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(this.name, this.type);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (other instanceof DataKey) {
+      DataKey<?> otherKey = (DataKey<?>) other;
+      return Objects.equal(this.name, otherKey.name) && Objects.equal(this.type, otherKey.type);
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("name", this.name).add("type", this.type.getName()).toString();
+  }
+}
@@ -1,35 +1,57 @@
 package com.itemis.maven.plugins.cdi;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
 import org.apache.maven.plugin.PluginParameterExpressionEvaluator;
-import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluationException;
 
-import com.google.common.collect.Iterables;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.ExecutionContextAccess;
 
 public class ExecutionContext {
   public static final String PROJ_VAR_VERSION = "@{project.version}";
   public static final String PROJ_VAR_GID = "@{project.groupId}";
   public static final String PROJ_VAR_AID = "@{project.artifactId}";
 
+  static {
+    ExecutionContextAccess.register(new ExecutionContextAccess() {
+      @Override
+      public void setSubtasks(ExecutionContext context, Subtasks subtasks) {
+        context.setSubtasks(subtasks);
+      }
+
+      @Override
+      public void setChannels(ExecutionContext context, Channels channels) {
+        context.setChannels(channels);
+      }
+
+      @Override
+      public void setWorkflowData(ExecutionContext context, WorkflowData workflowData) {
+        context.setWorkflowData(workflowData);
+      }
+    });
+  }
+
   private String stepId;
   private String stepQualifier;
-  private Map<String, String> mappedData;
-  private Iterable<String> unmappedData;
-  private boolean variablesExpanded;
-  private Map<String, String> mappedRollbackData;
-  private Iterable<String> unmappedRollbackData;
-
-  private ExecutionContext(String stepId, String qualifier, Map<String, String> mappedData,
-      Iterable<String> unmappedData, Map<String, String> mappedRollbackData, Iterable<String> unmappedRollbackData) {
+  private String compositeStepId;
+  private StepData mappedData;
+  private StepData unmappedData;
+  private StepData mappedRollbackData;
+  private StepData unmappedRollbackData;
+  private volatile ExpressionEvaluationCache expressionCache;
+  private volatile Subtasks subtasks;
+  private volatile Channels channels;
+  private volatile WorkflowData workflowData;
+
+  private ExecutionContext(String stepId, String qualifier, StepData mappedData, StepData unmappedData,
+      StepData mappedRollbackData, StepData unmappedRollbackData) {
     this.stepId = stepId;
     this.stepQualifier = qualifier;
+    this.compositeStepId = stepId + (qualifier != null ? "[" + qualifier + "]" : "");
     this.mappedData = mappedData;
     this.unmappedData = unmappedData;
     this.mappedRollbackData = mappedRollbackData;
@@ -49,7 +71,7 @@ public class ExecutionContext {
   }
 
   public String getCompositeStepId() {
-    return this.stepId + (this.stepQualifier != null ? "[" + this.stepQualifier + "]" : "");
+    return this.compositeStepId;
   }
 
   public boolean hasMappedData() {
@@ -57,7 +79,7 @@ public class ExecutionContext {
   }
 
   public boolean hasUnmappedData() {
-    return !Iterables.isEmpty(this.unmappedData);
+    return !this.unmappedData.isEmpty();
   }
 
   public boolean hasMappedRollbackData() {
@@ -65,7 +87,7 @@ public class ExecutionContext {
   }
 
   public boolean hasUnmappedRollbackData() {
-    return !Iterables.isEmpty(this.unmappedRollbackData);
+    return !this.unmappedRollbackData.isEmpty();
   }
 
   public Set<String> getMappedDataKeys() {
@@ -73,7 +95,7 @@ public class ExecutionContext {
   }
 
   public String getMappedDate(String key) {
-    return this.mappedData.get(key);
+    return this.mappedData.get(key, this.expressionCache);
   }
 
   public boolean containsMappedDate(String key) {
@@ -81,7 +103,7 @@ public class ExecutionContext {
   }
 
   public Iterable<String> getUnmappedData() {
-    return this.unmappedData;
+    return this.unmappedData.values(this.expressionCache);
   }
 
   public Set<String> getMappedRollbackDataKeys() {
@@ -89,7 +111,7 @@ public class ExecutionContext {
   }
 
   public String getMappedRollbackDate(String key) {
-    return this.mappedRollbackData.get(key);
+    return this.mappedRollbackData.get(key, this.expressionCache);
   }
 
   public boolean containsMappedRollbackDate(String key) {
@@ -97,63 +119,141 @@ public class ExecutionContext {
   }
 
   public Iterable<String> getUnmappedRollbackData() {
-    return this.unmappedRollbackData;
+    return this.unmappedRollbackData.values(this.expressionCache);
   }
 
-  public void expandProjectVariables(PluginParameterExpressionEvaluator expressionEvaluator) {
-    if (this.variablesExpanded) {
-      return;
-    }
-    expandUnmappedData(expressionEvaluator);
-    expandMappedData(expressionEvaluator);
-    this.variablesExpanded = true;
+  /**
+   * @return the subtasks of the current step execution which can be used to fork parallel work onto the shared pool of
+   *         the workflow executor.
+   * @throws IllegalStateException if the step is not executed by the workflow executor.
+   * @since 4.0.3
+   */
+  public Subtasks getSubtasks() {
+    Subtasks subtasks = this.subtasks;
+    Preconditions.checkState(subtasks != null,
+        "Subtasks are only available while the step '" + getCompositeStepId() + "' is executed.");
+    return subtasks;
   }
 
-  private void expandUnmappedData(PluginParameterExpressionEvaluator expressionEvaluator) {
-    if (hasUnmappedData()) {
-      List<String> newData = Lists.newArrayList();
-      for (String date : this.unmappedData) {
-        newData.add(expand(date, expressionEvaluator));
-      }
-      this.unmappedData = Iterables.unmodifiableIterable(newData);
-    }
+  /**
+   * Binds the subtasks of the current step execution. This method is called by the workflow executor.
+   *
+   * @param subtasks the subtasks of the current step execution.
+   * @since 4.0.3
+   */
+  void setSubtasks(Subtasks subtasks) {
+    this.subtasks = subtasks;
+  }
 
-    if (hasUnmappedRollbackData()) {
-      List<String> newData = Lists.newArrayList();
-      for (String date : this.unmappedRollbackData) {
-        newData.add(expand(date, expressionEvaluator));
-      }
-      this.unmappedRollbackData = Iterables.unmodifiableIterable(newData);
-    }
+  /**
+   * Obtains a channel with {@link Channels#DEFAULT_CAPACITY the default capacity} through which this step can stream
+   * items to or from another step that runs concurrently, f.i. within a <code>pipeline{}</code> block.
+   *
+   * @param name the name of the channel which identifies the channel across all steps of the workflow.
+   * @param type the type of the items of the channel.
+   * @return the channel.
+   * @throws IllegalStateException if the step is not executed by the workflow executor or if the channel has already
+   *           been obtained for another item type.
+   * @since 4.0.3
+   */
+  public <T> Channel<T> getChannel(String name, Class<T> type) {
+    return getChannel(name, type, Channels.DEFAULT_CAPACITY);
   }
 
-  private void expandMappedData(PluginParameterExpressionEvaluator expressionEvaluator) {
-    if (hasMappedData()) {
-      Map<String, String> newData = Maps.newHashMap();
-      for (Entry<String, String> entry : this.mappedData.entrySet()) {
-        newData.put(entry.getKey(), expand(entry.getValue(), expressionEvaluator));
-      }
-      this.mappedData = Collections.unmodifiableMap(this.mappedData);
-    }
-    if (hasMappedRollbackData()) {
-      Map<String, String> newData = Maps.newHashMap();
-      for (Entry<String, String> entry : this.mappedRollbackData.entrySet()) {
-        newData.put(entry.getKey(), expand(entry.getValue(), expressionEvaluator));
-      }
-      this.mappedRollbackData = Collections.unmodifiableMap(this.mappedRollbackData);
-    }
+  /**
+   * Obtains a channel through which this step can stream items to or from another step that runs concurrently, f.i.
+   * within a <code>pipeline{}</code> block.
+   *
+   * @param name the name of the channel which identifies the channel across all steps of the workflow.
+   * @param type the type of the items of the channel.
+   * @param capacity the number of items the channel buffers before sending blocks. The capacity is only considered by
+   *          the step that obtains the channel first.
+   * @return the channel.
+   * @throws IllegalStateException if the step is not executed by the workflow executor or if the channel has already
+   *           been obtained for another item type.
+   * @since 4.0.3
+   */
+  public <T> Channel<T> getChannel(String name, Class<T> type, int capacity) {
+    Channels channels = this.channels;
+    Preconditions.checkState(channels != null,
+        "Channels are only available while the step '" + getCompositeStepId() + "' is executed.");
+    return channels.getChannel(getCompositeStepId(), name, type, capacity);
+  }
+
+  /**
+   * Binds the channels of the current workflow execution. This method is called by the workflow executor.
+   *
+   * @param channels the channels of the current workflow execution.
+   * @since 4.0.3
+   */
+  void setChannels(Channels channels) {
+    this.channels = channels;
+  }
+
+  /**
+   * @return the typed data that is shared between all steps of the current workflow execution.
+   * @throws IllegalStateException if the step is not executed by the workflow executor.
+   * @since 4.0.3
+   */
+  public WorkflowData getWorkflowData() {
+    WorkflowData workflowData = this.workflowData;
+    Preconditions.checkState(workflowData != null,
+        "Workflow data is only available while the step '" + getCompositeStepId() + "' is executed.");
+    return workflowData;
   }
 
-  private String expand(String s, PluginParameterExpressionEvaluator expressionEvaluator) {
-    String var = s.replace("@{", "${");
-    try {
-      String evaluated = expressionEvaluator.evaluate(var).toString();
-      return evaluated;
-    } catch (ExpressionEvaluationException e) {
-      throw new RuntimeException(e.getMessage(), e);
+  /**
+   * Binds the shared data of the current workflow execution. This method is called by the workflow executor.
+   *
+   * @param workflowData the shared data of the current workflow execution.
+   * @since 4.0.3
+   */
+  void setWorkflowData(WorkflowData workflowData) {
+    this.workflowData = workflowData;
+  }
+
+  public void expandProjectVariables(PluginParameterExpressionEvaluator expressionEvaluator) {
+    expandProjectVariables(new ExpressionEvaluationCache(expressionEvaluator));
+  }
+
+  /**
+   * Enables the expansion of the variables of the data of this context. The variables of each value of the execution
+   * data are expanded lazily when the value is accessed for the first time and the expanded value is retained for all
+   * subsequent accesses, also if the context is accessed concurrently. Values that do not contain any variables are not
+   * evaluated at all and the results of the evaluation of expressions are shared using the passed cache.<br>
+   * <br>
+   * The rollback data is expanded immediately since it is usually read only after the step has changed the state its
+   * variables refer to, f.i. <code>@{project.version}</code>. A rollback thus restores the state from before the
+   * execution of the step.<br>
+   * <br>
+   * Calling this method again has no effect.
+   *
+   * @param expressionCache the cache for the evaluated expressions.
+   * @since 4.0.3
+   */
+  public void expandProjectVariables(ExpressionEvaluationCache expressionCache) {
+    if (this.expressionCache == null) {
+      this.mappedRollbackData.expandAll(expressionCache);
+      this.unmappedRollbackData.expandAll(expressionCache);
+      this.expressionCache = expressionCache;
     }
   }
 
+  /**
+   * Enables the expansion of the variables of the data of this context like
+   * {@link #expandProjectVariables(ExpressionEvaluationCache)} but expands the execution data immediately as well. This
+   * is required if the data is recorded after the execution of the step, f.i. by a workflow checkpoint, since the step
+   * may change the state the variables refer to before it accesses the data or without accessing it at all.
+   *
+   * @param expressionCache the cache for the evaluated expressions.
+   * @since 4.0.3
+   */
+  public void expandAllProjectVariables(ExpressionEvaluationCache expressionCache) {
+    expandProjectVariables(expressionCache);
+    this.mappedData.expandAll(this.expressionCache);
+    this.unmappedData.expandAll(this.expressionCache);
+  }
+
   public static class Builder {
     private String id;
     private String qualifier;
@@ -177,32 +277,35 @@ public class ExecutionContext {
 
     public Builder addData(String... data) {
       for (String date : data) {
-        this.unmappedData.add(date);
+        this.unmappedData.add(Preconditions.checkNotNull(date, "Step data must not be null."));
       }
       return this;
     }
 
     public Builder addRollbackData(String... data) {
       for (String date : data) {
-        this.unmappedRollbackData.add(date);
+        this.unmappedRollbackData.add(Preconditions.checkNotNull(date, "Rollback data must not be null."));
       }
       return this;
     }
 
     public Builder addData(String key, String value) {
+      Preconditions.checkNotNull(key, "The key of step data must not be null.");
+      Preconditions.checkNotNull(value, "The value of step data '" + key + "' must not be null.");
       this.mappedData.put(key, value);
       return this;
     }
 
     public Builder addRollbackData(String key, String value) {
+      Preconditions.checkNotNull(key, "The key of rollback data must not be null.");
+      Preconditions.checkNotNull(value, "The value of rollback data '" + key + "' must not be null.");
       this.mappedRollbackData.put(key, value);
       return this;
     }
 
     public ExecutionContext build() {
-      return new ExecutionContext(this.id, this.qualifier, Collections.unmodifiableMap(this.mappedData),
-          Iterables.unmodifiableIterable(this.unmappedData), Collections.unmodifiableMap(this.mappedRollbackData),
-          Iterables.unmodifiableIterable(this.unmappedRollbackData));
+      return new ExecutionContext(this.id, this.qualifier, StepData.of(this.mappedData), StepData.of(this.unmappedData),
+          StepData.of(this.mappedRollbackData), StepData.of(this.unmappedRollbackData));
     }
   }
 }
@@ -0,0 +1,57 @@
+package com.itemis.maven.plugins.cdi;
+
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.maven.plugin.PluginParameterExpressionEvaluator;
+import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluationException;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Memoizes the results of a {@link PluginParameterExpressionEvaluator} so that an expression which is used by the data
+ * of many {@link ExecutionContext execution contexts}, f.i. <code>@{project.version}</code>, is evaluated only once.
+ * <br>
+ * <br>
+ * Since processing steps may change the state expressions refer to, f.i. the version of the project, the workflow
+ * executor {@link #invalidate() invalidates} the cache after each step of the workflow. The steps of a parallel block
+ * thus share the evaluated expressions. All methods are thread-safe.
+ *
+ * @since 4.0.3
+ */
+public class ExpressionEvaluationCache {
+  private final PluginParameterExpressionEvaluator expressionEvaluator;
+  private final ConcurrentMap<String, String> results;
+
+  /**
+   * @param expressionEvaluator the evaluator for the expressions.
+   */
+  public ExpressionEvaluationCache(PluginParameterExpressionEvaluator expressionEvaluator) {
+    this.expressionEvaluator = expressionEvaluator;
+    this.results = Maps.newConcurrentMap();
+  }
+
+  /**
+   * @param expression the Maven expression to evaluate, f.i. <code>${project.version}</code>.
+   * @return the evaluated expression.
+   * @throws RuntimeException if the expression could not be evaluated.
+   */
+  public String evaluate(String expression) {
+    String result = this.results.get(expression);
+    if (result == null) {
+      try {
+        result = this.expressionEvaluator.evaluate(expression).toString();
+      } catch (ExpressionEvaluationException e) {
+        throw new RuntimeException(e.getMessage(), e);
+      }
+      this.results.putIfAbsent(expression, result);
+    }
+    return result;
+  }
+
+  /**
+   * Discards all evaluated expressions.
+   */
+  public void invalidate() {
+    this.results.clear();
+  }
+}
@@ -0,0 +1,208 @@
+package com.itemis.maven.plugins.cdi;
+
+import java.util.AbstractList;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.collect.Iterators;
+
+/**
+ * A compact immutable representation of the mapped or unmapped data of an {@link ExecutionContext}. Keys and values are
+ * stored in parallel arrays, keys are interned and all empty data share a single instance. Small maps are searched
+ * linearly, only maps with more than {@value #INDEX_THRESHOLD} entries carry an additional key index.<br>
+ * <br>
+ * Values are prepared for expression evaluation once when they are stored: <code>@{...}</code> variables are rewritten
+ * to Maven expressions and values without any expression are never passed to the expression evaluator. Expanded
+ * values are retained thread-safely.
+ *
+ * @since 4.0.3
+ */
+final class StepData {
+  static final StepData EMPTY = new StepData(null, new String[0]);
+
+  private static final int INDEX_THRESHOLD = 8;
+  private static final Interner<String> KEYS = Interners.newWeakInterner();
+
+  // null for unmapped data
+  private final String[] keys;
+  private final String[] values;
+  // null if no value contains an expression, otherwise null entries denote constant values
+  private final String[] expressions;
+  private final AtomicReferenceArray<String> expandedValues;
+  private final Map<String, Integer> index;
+
+  private StepData(String[] keys, String[] values) {
+    this.keys = keys;
+    this.values = values;
+
+    String[] expressions = null;
+    for (int i = 0; i < values.length; i++) {
+      String expression = toExpression(values[i]);
+      if (expression != null) {
+        if (expressions == null) {
+          expressions = new String[values.length];
+        }
+        expressions[i] = expression;
+      }
+    }
+    this.expressions = expressions;
+    this.expandedValues = expressions != null ? new AtomicReferenceArray<String>(values.length) : null;
+
+    if (keys != null && keys.length > INDEX_THRESHOLD) {
+      ImmutableMap.Builder<String, Integer> index = ImmutableMap.builder();
+      for (int i = 0; i < keys.length; i++) {
+        index.put(keys[i], i);
+      }
+      this.index = index.build();
+    } else {
+      this.index = null;
+    }
+  }
+
+  static StepData of(List<String> data) {
+    if (data.isEmpty()) {
+      return EMPTY;
+    }
+    return new StepData(null, data.toArray(new String[data.size()]));
+  }
+
+  static StepData of(Map<String, String> data) {
+    if (data.isEmpty()) {
+      return EMPTY;
+    }
+    String[] keys = new String[data.size()];
+    String[] values = new String[data.size()];
+    int i = 0;
+    for (Entry<String, String> entry : data.entrySet()) {
+      keys[i] = KEYS.intern(entry.getKey());
+      values[i] = entry.getValue();
+      i++;
+    }
+    return new StepData(keys, values);
+  }
+
+  private static String toExpression(String value) {
+    String expression = value.replace("@{", "${");
+    return expression.indexOf('$') >= 0 ? expression : null;
+  }
+
+  boolean isEmpty() {
+    return this.values.length == 0;
+  }
+
+  boolean containsKey(String key) {
+    return indexOf(key) >= 0;
+  }
+
+  /**
+   * @param key the key of the value.
+   * @param cache the cache for evaluated expressions or {@code null} if the value shall not be expanded.
+   * @return the value or {@code null} if there is no such value.
+   */
+  String get(String key, ExpressionEvaluationCache cache) {
+    int i = indexOf(key);
+    return i >= 0 ? get(i, cache) : null;
+  }
+
+  private String get(int i, ExpressionEvaluationCache cache) {
+    if (cache == null || this.expressions == null || this.expressions[i] == null) {
+      return this.values[i];
+    }
+    String value = this.expandedValues.get(i);
+    if (value == null) {
+      value = cache.evaluate(this.expressions[i]);
+      if (!this.expandedValues.compareAndSet(i, null, value)) {
+        value = this.expandedValues.get(i);
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Expands all values containing expressions immediately.
+   *
+   * @param cache the cache for evaluated expressions.
+   */
+  void expandAll(ExpressionEvaluationCache cache) {
+    if (this.expressions != null) {
+      for (int i = 0; i < this.values.length; i++) {
+        get(i, cache);
+      }
+    }
+  }
+
+  private int indexOf(String key) {
+    if (this.keys == null || key == null) {
+      return -1;
+    }
+    if (this.index != null) {
+      Integer i = this.index.get(key);
+      return i != null ? i : -1;
+    }
+    for (int i = 0; i < this.keys.length; i++) {
+      if (this.keys[i].equals(key)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  Set<String> keySet() {
+    if (this.keys == null || this.keys.length == 0) {
+      return Collections.emptySet();
+    }
+    return new AbstractSet<String>() {
+      @Override
+      public boolean contains(Object o) {
+        return o instanceof String && indexOf((String) o) >= 0;
+      }
+
+      @Override
+      public Iterator<String> iterator() {
+        return Iterators.forArray(StepData.this.keys);
+      }
+
+      @Override
+      public int size() {
+        return StepData.this.keys.length;
+      }
+    };
+  }
+
+  /**
+   * @param cache the cache for evaluated expressions or {@code null} if the values shall not be expanded.
+   * @return an unmodifiable view of the values that expands each value on first access.
+   */
+  List<String> values(final ExpressionEvaluationCache cache) {
+    return new AbstractList<String>() {
+      @Override
+      public String get(int i) {
+        if (i < 0 || i >= StepData.this.values.length) {
+          throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size());
+        }
+        return StepData.this.get(i, cache);
+      }
+
+      @Override
+      public int size() {
+        return StepData.this.values.length;
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return this.keys != null ? Arrays.toString(this.keys) + '=' + Arrays.toString(this.values)
+        : Arrays.toString(this.values);
+  }
+}
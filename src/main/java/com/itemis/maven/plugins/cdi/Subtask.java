@@ -0,0 +1,112 @@
+package com.itemis.maven.plugins.cdi;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+
+/**
+ * A handle for a subtask that has been forked by a processing step using {@link Subtasks#fork(Callable)}.
+ *
+ * @param <T> the result type of the subtask.
+ * @since 4.0.3
+ */
+public final class Subtask<T> {
+  private final CallableTask<T> task;
+  private volatile boolean joined;
+
+  Subtask(Callable<T> callable) {
+    this.task = new CallableTask<T>(callable);
+  }
+
+  ForkJoinTask<T> getTask() {
+    return this.task;
+  }
+
+  /**
+   * Waits for the subtask to complete and returns its result. Exceptions thrown by the subtask are re-thrown and are
+   * considered as handled by the step, they will not fail the step on their own anymore.
+   *
+   * @return the result of the subtask.
+   * @throws MojoExecutionException if the subtask failed with such an exception, any other checked exception or if
+   *           the waiting thread has been interrupted.
+   * @throws MojoFailureException if the subtask failed with such an exception.
+   * @throws CancellationException if the subtask has been cancelled.
+   */
+  public T join() throws MojoExecutionException, MojoFailureException {
+    this.joined = true;
+    T result;
+    try {
+      result = this.task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      this.task.cancel(true);
+      throw new MojoExecutionException("Interrupted while waiting for the completion of a subtask.", e);
+    } catch (ExecutionException e) {
+      throw new MojoExecutionException("A subtask failed with an exception.", e.getCause());
+    }
+
+    Throwable failure = this.task.failure;
+    if (failure instanceof MojoExecutionException) {
+      throw (MojoExecutionException) failure;
+    } else if (failure instanceof MojoFailureException) {
+      throw (MojoFailureException) failure;
+    } else if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure instanceof Error) {
+      throw (Error) failure;
+    } else if (failure != null) {
+      throw new MojoExecutionException("A subtask failed with an exception.", failure);
+    }
+    return result;
+  }
+
+  /**
+   * Cancels the subtask if it has not yet been completed.
+   *
+   * @return {@code true} if the subtask has been cancelled.
+   */
+  public boolean cancel() {
+    return this.task.cancel(true);
+  }
+
+  public boolean isDone() {
+    return this.task.isDone();
+  }
+
+  public boolean isCancelled() {
+    return this.task.isCancelled();
+  }
+
+  boolean isJoined() {
+    return this.joined;
+  }
+
+  /**
+   * Other than {@link ForkJoinTask#adapt(Callable)} this task keeps checked exceptions of the callable unwrapped.
+   */
+  private static final class CallableTask<T> extends RecursiveTask<T> {
+    private static final long serialVersionUID = 1L;
+
+    private final Callable<T> callable;
+    private volatile Throwable failure;
+
+    private CallableTask(Callable<T> callable) {
+      this.callable = callable;
+    }
+
+    @Override
+    protected T compute() {
+      try {
+        return this.callable.call();
+      } catch (Throwable t) {
+        this.failure = t;
+        return null;
+      }
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package com.itemis.maven.plugins.cdi;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+
+/**
+ * Enables a processing step to fork parallel work onto the shared work-stealing pool of the workflow executor instead
+ * of creating its own thread pools. An instance is bound to a single step execution and can be obtained using
+ * {@link ExecutionContext#getSubtasks()}.<br>
+ * <br>
+ * After the step has finished, the executor waits for all subtasks that have not been joined by the step. If any of
+ * these subtasks failed, the step fails with the exception of the subtask and the usual rollback is triggered. If the
+ * step itself fails, all of its pending subtasks are cancelled.
+ *
+ * <pre>
+ * List&lt;Subtask&lt;File&gt;&gt; uploads = Lists.newArrayList();
+ * for (File f : files) {
+ *   uploads.add(context.getSubtasks().fork(() -&gt; upload(f)));
+ * }
+ * for (Subtask&lt;File&gt; upload : uploads) {
+ *   upload.join();
+ * }
+ * </pre>
+ *
+ * @since 4.0.3
+ */
+public final class Subtasks {
+  private final ForkJoinPool pool;
+  private final List<Subtask<?>> subtasks;
+
+  public Subtasks(ForkJoinPool pool) {
+    this.pool = pool;
+    this.subtasks = new CopyOnWriteArrayList<Subtask<?>>();
+  }
+
+  /**
+   * Forks a subtask onto the shared pool of the workflow executor.
+   *
+   * @param <T> the result type of the subtask.
+   * @param task the subtask to execute.
+   * @return a handle to join or cancel the subtask.
+   */
+  public <T> Subtask<T> fork(Callable<T> task) {
+    Subtask<T> subtask = new Subtask<T>(task);
+    ForkJoinTask<T> forkJoinTask = subtask.getTask();
+    Thread current = Thread.currentThread();
+    if (current instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) current).getPool() == this.pool) {
+      // nested subtasks are pushed to the local queue of the worker from which idle workers may steal them
+      forkJoinTask.fork();
+    } else {
+      this.pool.execute(forkJoinTask);
+    }
+    this.subtasks.add(subtask);
+    return subtask;
+  }
+
+  /**
+   * Waits for all subtasks of the step that have not been joined yet.
+   *
+   * @throws MojoExecutionException if any of the subtasks failed with such an exception or any other checked exception.
+   * @throws MojoFailureException if any of the subtasks failed with such an exception.
+   */
+  public void joinAll() throws MojoExecutionException, MojoFailureException {
+    for (Subtask<?> subtask : this.subtasks) {
+      if (!subtask.isJoined() && !subtask.isCancelled()) {
+        subtask.join();
+      }
+    }
+  }
+
+  /**
+   * Cancels all subtasks of the step that have not been completed yet.
+   */
+  public void cancelAll() {
+    for (Subtask<?> subtask : this.subtasks) {
+      subtask.cancel();
+    }
+  }
+}
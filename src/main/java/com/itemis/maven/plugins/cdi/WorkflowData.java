@@ -0,0 +1,166 @@
+package com.itemis.maven.plugins.cdi;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+
+/**
+ * Workflow-wide typed data shared between all processing steps of a workflow execution, f.i. a computed release
+ * version or the list of modules to process. An instance is created by the workflow executor for each execution and
+ * can be accessed using {@link ExecutionContext#getWorkflowData()}.<br>
+ * <br>
+ * All methods are thread-safe and do not block, except for {@link #computeIfAbsent(DataKey, Callable)} which waits
+ * while another step computes the same data. Storing data happens-before any subsequent retrieval of the data, also if
+ * it is retrieved by a step of a later or of the same parallel block.
+ *
+ * @since 4.0.3
+ */
+public final class WorkflowData {
+  private final ConcurrentMap<DataKey<?>, Object> values;
+
+  public WorkflowData() {
+    this.values = Maps.newConcurrentMap();
+  }
+
+  /**
+   * @param key the key of the data.
+   * @return the data stored under the key or an absent value if there is no such data or if the data is still being
+   *         computed.
+   */
+  public <T> Optional<T> get(DataKey<T> key) {
+    Object value = this.values.get(key);
+    if (value instanceof Computation) {
+      value = ((Computation) value).getResultIfDone();
+    }
+    return Optional.fromNullable(key.cast(value));
+  }
+
+  /**
+   * Stores data under the given key, replacing any existing data.
+   *
+   * @param key the key of the data.
+   * @param value the data to store.
+   */
+  public <T> void put(DataKey<T> key, T value) {
+    this.values.put(key, key.cast(Preconditions.checkNotNull(value, "The data stored under " + key.getName()
+        + " must not be null.")));
+  }
+
+  /**
+   * Removes the data stored under the given key.
+   *
+   * @param key the key of the data.
+   * @return the removed data or an absent value if there was no such data.
+   */
+  public <T> Optional<T> remove(DataKey<T> key) {
+    Object value = this.values.remove(key);
+    if (value instanceof Computation) {
+      value = ((Computation) value).getResultIfDone();
+    }
+    return Optional.fromNullable(key.cast(value));
+  }
+
+  /**
+   * Returns the data stored under the given key, computing it first if there is no such data. The data is computed only
+   * once, concurrent callers requesting the same key wait for the computation instead of computing the data again. If
+   * the computation fails, no data is stored and the next call computes the data again.
+   *
+   * @param key the key of the data.
+   * @param loader the computation of the data which must not return {@code null}.
+   * @return the stored or computed data.
+   * @throws MojoExecutionException if the computation failed with such an exception or any other checked exception or
+   *           if the waiting thread has been interrupted.
+   * @throws MojoFailureException if the computation failed with such an exception.
+   * @throws IllegalStateException if the computation requests its own key.
+   */
+  public <T> T computeIfAbsent(DataKey<T> key, Callable<? extends T> loader)
+      throws MojoExecutionException, MojoFailureException {
+    Object value = this.values.get(key);
+    if (value == null) {
+      Computation computation = new Computation(loader);
+      value = this.values.putIfAbsent(key, computation);
+      if (value == null) {
+        value = computation;
+        computation.run();
+        if (computation.getResultIfDone() != null) {
+          // replace the computation by its result so that readers do not need to unwrap it
+          this.values.replace(key, computation, computation.getResultIfDone());
+        } else {
+          this.values.remove(key, computation);
+        }
+      }
+    }
+
+    if (value instanceof Computation) {
+      return key.cast(((Computation) value).await(key));
+    }
+    return key.cast(value);
+  }
+
+  private static final class Computation extends FutureTask<Object> {
+    private volatile Thread owner;
+
+    @SuppressWarnings("unchecked")
+    private Computation(Callable<?> loader) {
+      super((Callable<Object>) loader);
+    }
+
+    @Override
+    public void run() {
+      this.owner = Thread.currentThread();
+      try {
+        super.run();
+      } finally {
+        this.owner = null;
+      }
+    }
+
+    private Object getResultIfDone() {
+      if (isDone() && !isCancelled()) {
+        try {
+          return get();
+        } catch (InterruptedException | ExecutionException e) {
+          return null;
+        }
+      }
+      return null;
+    }
+
+    private Object await(DataKey<?> key) throws MojoExecutionException, MojoFailureException {
+      Preconditions.checkState(this.owner != Thread.currentThread(),
+          "The computation of the workflow data " + key.getName() + " requested its own result.");
+      Object result;
+      try {
+        result = get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new MojoExecutionException(
+            "Interrupted while waiting for the computation of the workflow data " + key.getName() + ".", e);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof MojoExecutionException) {
+          throw (MojoExecutionException) cause;
+        } else if (cause instanceof MojoFailureException) {
+          throw (MojoFailureException) cause;
+        } else if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new MojoExecutionException("The computation of the workflow data " + key.getName() + " failed.", cause);
+      }
+      if (result == null) {
+        throw new IllegalStateException("The computation of the workflow data " + key.getName() + " returned null.");
+      }
+      return result;
+    }
+  }
+}
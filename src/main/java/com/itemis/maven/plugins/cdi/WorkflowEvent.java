@@ -0,0 +1,99 @@
+package com.itemis.maven.plugins.cdi;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Optional;
+
+/**
+ * An event passed to {@link WorkflowListener workflow listeners}. Each event records the time and the thread at which
+ * it occurred.
+ *
+ * @since 4.0.3
+ */
+public final class WorkflowEvent {
+  private final String goalName;
+  private final String compositeStepId;
+  private final Throwable error;
+  private final long nanoTime;
+  private final long timestampMicros;
+  private final long threadId;
+  private final String threadName;
+
+  /**
+   * Creates an event that occurred right now on the current thread.
+   *
+   * @param goalName the name of the goal whose workflow is executed.
+   * @param compositeStepId the composite id of the step the event refers to or {@code null}.
+   * @param error the error the event refers to or {@code null}.
+   */
+  public WorkflowEvent(String goalName, String compositeStepId, Throwable error) {
+    this.goalName = goalName;
+    this.compositeStepId = compositeStepId;
+    this.error = error;
+    this.nanoTime = System.nanoTime();
+    Instant now = Instant.now();
+    this.timestampMicros = TimeUnit.SECONDS.toMicros(now.getEpochSecond())
+        + TimeUnit.NANOSECONDS.toMicros(now.getNano());
+    Thread thread = Thread.currentThread();
+    this.threadId = thread.getId();
+    this.threadName = thread.getName();
+  }
+
+  /**
+   * @return the name of the goal whose workflow is executed.
+   */
+  public String getGoalName() {
+    return this.goalName;
+  }
+
+  /**
+   * @return the composite id of the step the event refers to, absent for workflow related events.
+   */
+  public Optional<String> getCompositeStepId() {
+    return Optional.fromNullable(this.compositeStepId);
+  }
+
+  /**
+   * @return the error that failed the step or workflow or that caused the rollback.
+   */
+  public Optional<Throwable> getError() {
+    return Optional.fromNullable(this.error);
+  }
+
+  /**
+   * @return the value of {@link System#nanoTime()} at which the event occurred. Use this value to compute durations
+   *         between events.
+   */
+  public long getNanoTime() {
+    return this.nanoTime;
+  }
+
+  /**
+   * @return the wall clock time at which the event occurred in microseconds since the epoch. The actual precision
+   *         depends on the system clock, f.i. Java 8 only provides milliseconds.
+   */
+  public long getTimestampMicros() {
+    return this.timestampMicros;
+  }
+
+  /**
+   * @return the id of the thread on which the event occurred.
+   */
+  public long getThreadId() {
+    return this.threadId;
+  }
+
+  /**
+   * @return the name of the thread on which the event occurred.
+   */
+  public String getThreadName() {
+    return this.threadName;
+  }
+
+  @Override
+  public String toString() {
+    return "WorkflowEvent [goal=" + this.goalName + ", step=" + this.compositeStepId + ", thread=" + this.threadName
+        + ", error=" + this.error + "]";
+  }
+}
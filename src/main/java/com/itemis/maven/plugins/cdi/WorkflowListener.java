@@ -0,0 +1,95 @@
+package com.itemis.maven.plugins.cdi;
+
+/**
+ * A listener that observes the execution of a workflow, f.i. to collect metrics or to trace the execution. Listeners
+ * are discovered as CDI beans of the plugin and using the {@link java.util.ServiceLoader ServiceLoader} mechanism
+ * (<code>META-INF/services/com.itemis.maven.plugins.cdi.WorkflowListener</code>).<br>
+ * <br>
+ * Step related callbacks are invoked on the thread that executes the step, thus listeners must be thread-safe if the
+ * workflow contains parallel blocks. Listeners should return quickly since the callbacks are invoked synchronously.
+ * Exceptions thrown by listeners are logged and do not affect the workflow execution. All methods do nothing by
+ * default.
+ *
+ * @since 4.0.3
+ */
+public interface WorkflowListener {
+  /**
+   * Called before the first step of the workflow is executed.
+   *
+   * @param event the event.
+   */
+  default void workflowStarted(WorkflowEvent event) {
+  }
+
+  /**
+   * Called after the workflow has been executed including its finally-block, regardless of the outcome.
+   *
+   * @param event the event carrying the error that failed the workflow, if any.
+   */
+  default void workflowFinished(WorkflowEvent event) {
+  }
+
+  /**
+   * Called on the executing thread right before a step is executed.
+   *
+   * @param event the event carrying the composite id of the step.
+   */
+  default void stepStarted(WorkflowEvent event) {
+  }
+
+  /**
+   * Called on the executing thread after a step has been executed successfully.
+   *
+   * @param event the event carrying the composite id of the step.
+   */
+  default void stepFinished(WorkflowEvent event) {
+  }
+
+  /**
+   * Called on the executing thread after the execution of a step has failed.
+   *
+   * @param event the event carrying the composite id of the step and the error.
+   */
+  default void stepFailed(WorkflowEvent event) {
+  }
+
+  /**
+   * Called before the executed steps are rolled back.
+   *
+   * @param event the event carrying the error that caused the rollback.
+   */
+  default void rollbackStarted(WorkflowEvent event) {
+  }
+
+  /**
+   * Called before the rollback methods of a single step are invoked.
+   *
+   * @param event the event carrying the composite id of the step and the error that caused the rollback.
+   */
+  default void stepRollbackStarted(WorkflowEvent event) {
+  }
+
+  /**
+   * Called after the rollback methods of a single step have been invoked.
+   *
+   * @param event the event carrying the composite id of the step and the error that caused the rollback.
+   */
+  default void stepRollbackFinished(WorkflowEvent event) {
+  }
+
+  /**
+   * Called after all executed steps have been rolled back.
+   *
+   * @param event the event carrying the error that caused the rollback.
+   */
+  default void rollbackFinished(WorkflowEvent event) {
+  }
+
+  /**
+   * Called before the steps of the finally-block of the workflow are executed.
+   *
+   * @param event the event.
+   */
+  default void finallyStarted(WorkflowEvent event) {
+  }
+}
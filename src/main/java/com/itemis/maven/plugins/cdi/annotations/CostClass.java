@@ -0,0 +1,29 @@
+package com.itemis.maven.plugins.cdi.annotations;
+
+/**
+ * The cost class of a processing step determines on which thread pool the step is executed if it is part of a parallel
+ * block of the workflow.
+ *
+ * @since 4.0.3
+ */
+public enum CostClass {
+  /**
+   * The step is executed on the pool of the parallel block, f.i. one thread per step.
+   */
+  DEFAULT,
+  /**
+   * The step is mostly CPU-bound, f.i. compression or hashing. Such steps share a pool that is sized to the number of
+   * available cores.
+   */
+  CPU,
+  /**
+   * The step mostly waits for I/O, f.i. remote HTTP calls. Such steps share a pool with a high thread limit.
+   */
+  IO,
+  /**
+   * The step must be executed on the main thread of the Mojo, f.i. because it uses Maven APIs that are not thread-safe.
+   * Such steps are executed sequentially on the main thread while the other steps of the parallel block are executed
+   * on their pools.
+   */
+  MAIN_THREAD;
+}
@@ -40,4 +40,24 @@ public @interface ProcessingStep {
    * @since 2.1.0
    */
   boolean requiresOnline() default true;
+
+  /**
+   * When a workflow is resumed from a checkpoint, all steps that have already been completed by the previous execution
+   * are skipped. Steps that cannot be skipped, f.i. because they compute state that later steps depend on, must return
+   * {@code false} here in order to be re-executed on resume.
+   *
+   * @return {@code true} if this step may be skipped when resuming a workflow from a checkpoint in which it was already
+   *         completed.
+   * @since 4.0.3
+   */
+  boolean resumable() default true;
+
+  /**
+   * The cost class determines the thread pool on which this step is executed if it is part of a parallel block of the
+   * workflow. Steps that are executed sequentially are always executed on the main thread.
+   *
+   * @return the cost class of this processing step.
+   * @since 4.0.3
+   */
+  CostClass costClass() default CostClass.DEFAULT;
 }
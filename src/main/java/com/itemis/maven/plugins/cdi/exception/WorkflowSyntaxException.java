@@ -0,0 +1,39 @@
+package com.itemis.maven.plugins.cdi.exception;
+
+/**
+ * An exception indicating a syntax error in a workflow descriptor. The exception carries the position of the error
+ * within the descriptor.
+ *
+ * @since 4.0.3
+ */
+public class WorkflowSyntaxException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  private final int line;
+  private final int column;
+
+  /**
+   * @param message the detail message without position information.
+   * @param line the line of the error, starting at 1.
+   * @param column the column of the error, starting at 1.
+   */
+  public WorkflowSyntaxException(String message, int line, int column) {
+    super(message + " (line " + line + ", column " + column + ")");
+    this.line = line;
+    this.column = column;
+  }
+
+  /**
+   * @return the line of the error, starting at 1.
+   */
+  public int getLine() {
+    return this.line;
+  }
+
+  /**
+   * @return the column of the error, starting at 1.
+   */
+  public int getColumn() {
+    return this.column;
+  }
+}
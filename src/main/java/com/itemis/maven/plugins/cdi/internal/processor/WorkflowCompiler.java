@@ -0,0 +1,223 @@
+package com.itemis.maven.plugins.cdi.internal.processor;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.io.ByteStreams;
+import com.itemis.maven.plugins.cdi.exception.WorkflowSyntaxException;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.DefaultWorkflowFragmentResolver;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.ParallelWorkflowStep;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.ProcessingWorkflow;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.SimpleWorkflowStep;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowCodec;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowFragmentResolver;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowParser;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowStep;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowUtil;
+
+/**
+ * An annotation processor that compiles the workflow descriptors of a plugin at build time. The processor is
+ * registered automatically for all projects depending on this library.<br>
+ * <br>
+ * For each Mojo of the compilation the processor looks up the workflow descriptor
+ * <code>META-INF/workflows/&lt;goal&gt;</code> in the class output directory. Descriptors are validated and written in
+ * {@link WorkflowCodec their compiled form} which {@link WorkflowUtil} prefers at runtime. Syntax errors fail the
+ * compilation while step ids that are not declared by any
+ * {@link com.itemis.maven.plugins.cdi.annotations.ProcessingStep processing step} of the compilation are reported as
+ * warnings since the steps may be provided by dependencies.<br>
+ * <br>
+ * The compiled form records a hash of the descriptor and of all included fragments. If it is loaded from a directory
+ * at runtime, it is only used while this hash matches the descriptor on the classpath, otherwise the descriptor is
+ * parsed. This covers incremental builds that copy an edited descriptor without recompiling any sources. A compiled
+ * form packaged in the same archive as its descriptor is used without checking the hash.<br>
+ * <br>
+ * The processor is discovered from the compile classpath using the {@link java.util.ServiceLoader}. Starting with JDK
+ * 23, javac no longer runs processors discovered this way unless annotation processing is requested explicitly, f.i.
+ * by passing <code>-proc:full</code> to the compiler or by listing this library in the
+ * <code>annotationProcessorPaths</code> of the <code>maven-compiler-plugin</code>. Without it, no compiled workflows
+ * are produced and the descriptors are parsed at runtime.
+ *
+ * @since 4.0.3
+ */
+@SupportedAnnotationTypes({ WorkflowCompiler.MOJO_ANNOTATION, WorkflowCompiler.PROCESSING_STEP_ANNOTATION })
+public class WorkflowCompiler extends AbstractProcessor {
+  static final String MOJO_ANNOTATION = "org.apache.maven.plugins.annotations.Mojo";
+  static final String PROCESSING_STEP_ANNOTATION = "com.itemis.maven.plugins.cdi.annotations.ProcessingStep";
+
+  private final Map<String, Element> goals = Maps.newLinkedHashMap();
+  private final Set<String> stepIds = Sets.newHashSet();
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (TypeElement annotation : annotations) {
+      String annotationName = annotation.getQualifiedName().toString();
+      for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        if (Objects.equal(MOJO_ANNOTATION, annotationName)) {
+          String goal = getAnnotationValue(element, MOJO_ANNOTATION, "name");
+          if (goal != null) {
+            this.goals.put(goal, element);
+          }
+        } else {
+          String id = getAnnotationValue(element, PROCESSING_STEP_ANNOTATION, "id");
+          if (id != null) {
+            this.stepIds.add(id);
+          }
+        }
+      }
+    }
+
+    if (roundEnv.processingOver()) {
+      for (Entry<String, Element> goal : this.goals.entrySet()) {
+        compileWorkflow(goal.getKey(), goal.getValue());
+      }
+    }
+    // the annotations are not claimed since other processors may be interested in them as well
+    return false;
+  }
+
+  private void compileWorkflow(String goal, Element mojo) {
+    String descriptorPath = WorkflowUtil.DEFAULT_WORKFLOW_DIR + "/" + goal;
+    ProcessingWorkflow workflow;
+    HashCode sourceHash;
+    final DefaultWorkflowFragmentResolver resolver;
+    final Set<String> unresolvedFragments = Sets.newHashSet();
+    try {
+      FileObject descriptor = this.processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "",
+          descriptorPath);
+      byte[] content;
+      try (InputStream is = descriptor.openInputStream()) {
+        content = ByteStreams.toByteArray(is);
+      }
+      resolver = new DefaultWorkflowFragmentResolver(getDirectory(descriptor), null);
+      try (Reader reader = new InputStreamReader(new ByteArrayInputStream(content))) {
+        workflow = WorkflowParser.parse(reader, goal, new WorkflowFragmentResolver() {
+          @Override
+          public List<WorkflowStep> resolve(String fragmentName) throws IOException {
+            try {
+              return resolver.resolve(fragmentName);
+            } catch (FileNotFoundException e) {
+              unresolvedFragments.add(fragmentName);
+              throw e;
+            }
+          }
+        });
+      }
+
+      List<byte[]> fragments = Lists.newArrayList();
+      for (String fragmentName : resolver.getResolvedFragments()) {
+        fragments.add(resolver.read(fragmentName));
+      }
+      sourceHash = WorkflowCodec.computeSourceHash(content, fragments);
+    } catch (WorkflowSyntaxException e) {
+      if (unresolvedFragments.isEmpty()) {
+        this.processingEnv.getMessager().printMessage(Kind.ERROR, e.getMessage(), mojo);
+      } else {
+        // fragments may also be provided by dependencies of the plugin which are only available at runtime
+        this.processingEnv.getMessager().printMessage(Kind.WARNING,
+            "The workflow of goal '" + goal + "' is not compiled since the included fragments " + unresolvedFragments
+                + " cannot be resolved at build time. The workflow will be parsed at runtime instead.",
+            mojo);
+      }
+      return;
+    } catch (IOException e) {
+      // Mojos without a workflow descriptor are no CDI Mojos
+      return;
+    }
+
+    for (String id : getStepIds(workflow)) {
+      if (!this.stepIds.contains(id)) {
+        this.processingEnv.getMessager().printMessage(Kind.WARNING,
+            "The workflow of goal '" + goal + "' references the processing step id '" + id
+                + "' which is not declared by any processing step of this compilation."
+                + " Make sure that the step is provided by a dependency of the plugin.",
+            mojo);
+      }
+    }
+
+    try {
+      FileObject compiledWorkflow = this.processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+          descriptorPath + WorkflowCodec.FILE_EXTENSION, mojo);
+      try (OutputStream os = compiledWorkflow.openOutputStream()) {
+        WorkflowCodec.encode(workflow, sourceHash, resolver.getResolvedFragments(), os);
+      }
+    } catch (IOException e) {
+      this.processingEnv.getMessager().printMessage(Kind.WARNING,
+          "Unable to write the compiled workflow of goal '" + goal + "': " + e.getMessage(), mojo);
+    }
+  }
+
+  private static Optional<File> getDirectory(FileObject fileObject) {
+    URI uri = fileObject.toUri();
+    if (!"file".equals(uri.getScheme())) {
+      return Optional.absent();
+    }
+    return Optional.fromNullable(new File(uri).getParentFile());
+  }
+
+  private static Set<String> getStepIds(ProcessingWorkflow workflow) {
+    Set<String> ids = Sets.newLinkedHashSet();
+    for (WorkflowStep step : workflow.getProcessingSteps()) {
+      if (step.isParallel()) {
+        for (SimpleWorkflowStep simpleStep : ((ParallelWorkflowStep) step).getSteps()) {
+          ids.add(simpleStep.getStepId());
+        }
+      } else {
+        ids.add(((SimpleWorkflowStep) step).getStepId());
+      }
+    }
+    for (SimpleWorkflowStep step : workflow.getFinallySteps()) {
+      ids.add(step.getStepId());
+    }
+    return ids;
+  }
+
+  private static String getAnnotationValue(Element element, String annotationName, String attributeName) {
+    for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+      TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+      if (Objects.equal(annotationName, annotationType.getQualifiedName().toString())) {
+        for (Entry<? extends ExecutableElement, ? extends AnnotationValue> attribute : mirror.getElementValues()
+            .entrySet()) {
+          if (Objects.equal(attributeName, attribute.getKey().getSimpleName().toString())) {
+            return String.valueOf(attribute.getValue().getValue());
+          }
+        }
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,296 @@
+package com.itemis.maven.plugins.cdi.internal.util;
+
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import de.vandermeer.asciitable.AT_Context;
+import de.vandermeer.asciitable.AT_Renderer;
+import de.vandermeer.asciitable.AT_Row;
+import de.vandermeer.asciitable.AsciiTable;
+import de.vandermeer.asciitable.CWC_LongestLine;
+import de.vandermeer.asciithemes.u8.U8_Grids;
+import de.vandermeer.skb.interfaces.transformers.textformat.TextAlignment;
+
+import jakarta.enterprise.context.spi.CreationalContext;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.spi.Extension;
+import jakarta.enterprise.inject.spi.InjectionPoint;
+import jakarta.enterprise.inject.spi.InjectionTarget;
+import jakarta.enterprise.inject.spi.ProcessInjectionTarget;
+import jakarta.enterprise.inject.spi.ProcessProducer;
+import jakarta.enterprise.inject.spi.Producer;
+
+/**
+ * A CDI portable extension that profiles the creation of beans. The injection targets of all discovered bean classes
+ * and all producer methods and fields are wrapped to time the construction, the injection and the post-construct
+ * callbacks of the beans as well as the producer calls, aggregated by bean class or producer member.<br>
+ * <br>
+ * The times are inclusive, i.e. the injection time of a bean contains the creation of the beans that are injected
+ * into it. The most expensive beans of a deep injection graph thus show up together with all beans depending on them.
+ *
+ * @since 4.0.3
+ */
+public class BeanProfiler implements Extension {
+  private final ConcurrentMap<String, BeanStats> stats;
+
+  public BeanProfiler() {
+    this.stats = Maps.newConcurrentMap();
+  }
+
+  @SuppressWarnings("unused")
+  // will be called automatically by the CDI container for all injection targets
+  private <T> void wrapInjectionTarget(@Observes ProcessInjectionTarget<T> event) {
+    BeanStats beanStats = getOrCreateStats(event.getAnnotatedType().getJavaClass().getName());
+    event.setInjectionTarget(new ProfilingInjectionTarget<T>(event.getInjectionTarget(), beanStats));
+  }
+
+  @SuppressWarnings("unused")
+  // will be called automatically by the CDI container for all producer methods and fields
+  private <T, X> void wrapProducer(@Observes ProcessProducer<T, X> event) {
+    BeanStats beanStats = getOrCreateStats(getProducerName(event.getAnnotatedMember().getJavaMember()));
+    event.setProducer(new ProfilingProducer<X>(event.getProducer(), beanStats));
+  }
+
+  /**
+   * @param member a producer method or field.
+   * @return the name of the producer, the parameter types distinguish overloaded producer methods.
+   */
+  private static String getProducerName(Member member) {
+    StringBuilder sb = new StringBuilder(member.getDeclaringClass().getName()).append('#').append(member.getName());
+    if (member instanceof Method) {
+      sb.append('(');
+      Class<?>[] parameterTypes = ((Method) member).getParameterTypes();
+      for (int i = 0; i < parameterTypes.length; i++) {
+        if (i > 0) {
+          sb.append(", ");
+        }
+        sb.append(parameterTypes[i].getTypeName());
+      }
+      sb.append(')');
+    }
+    return sb.toString();
+  }
+
+  private BeanStats getOrCreateStats(String name) {
+    BeanStats beanStats = this.stats.get(name);
+    if (beanStats == null) {
+      BeanStats newStats = new BeanStats(name);
+      beanStats = this.stats.putIfAbsent(name, newStats);
+      if (beanStats == null) {
+        beanStats = newStats;
+      }
+    }
+    return beanStats;
+  }
+
+  /**
+   * @param name the name of the bean class or the producer, f.i. <i>com.foo.Factory#create(java.lang.String)</i>.
+   * @return the statistics of the bean or producer if it has been discovered.
+   */
+  public Optional<BeanStats> getStats(String name) {
+    return Optional.fromNullable(this.stats.get(name));
+  }
+
+  /**
+   * @return the number of beans and producers that have created at least one instance.
+   */
+  public int size() {
+    int size = 0;
+    for (BeanStats beanStats : this.stats.values()) {
+      if (beanStats.instances.sum() > 0) {
+        size++;
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Renders the most expensive beans and producers, sorted by the total time spent in their creation.
+   *
+   * @param limit the maximum number of beans to render.
+   * @return the rendered table.
+   */
+  public String render(int limit) {
+    List<BeanStats> sorted = Lists.newArrayList();
+    for (BeanStats beanStats : this.stats.values()) {
+      if (beanStats.instances.sum() > 0) {
+        sorted.add(beanStats);
+      }
+    }
+    Collections.sort(sorted, new Comparator<BeanStats>() {
+      @Override
+      public int compare(BeanStats s1, BeanStats s2) {
+        return Long.compare(s2.getTotalNanos(), s1.getTotalNanos());
+      }
+    });
+
+    AsciiTable table = new AsciiTable(new AT_Context().setGrid(U8_Grids.borderStrongDoubleLight()));
+    table.addRule();
+    AT_Row header = table.addRow("BEAN", "INSTANCES", "CONSTRUCT", "INJECT", "POST-CONSTRUCT", "PRODUCE", "TOTAL");
+    header.setTextAlignment(TextAlignment.CENTER);
+    table.addStrongRule();
+
+    for (BeanStats beanStats : sorted.subList(0, Math.min(limit, sorted.size()))) {
+      AT_Row data = table.addRow(beanStats.name, beanStats.instances.sum(), formatTime(beanStats.construct),
+          formatTime(beanStats.inject), formatTime(beanStats.postConstruct), formatTime(beanStats.produce),
+          formatTime(beanStats.getTotalNanos()));
+      data.setTextAlignment(TextAlignment.RIGHT).setPaddingLeftRight(1);
+      data.getCells().get(0).getContext().setTextAlignment(TextAlignment.LEFT);
+      table.addRule();
+    }
+
+    return table.setRenderer(AT_Renderer.create().setCWC(new CWC_LongestLine().add(10, 70).add(9, 9).add(9, 12)
+        .add(8, 12).add(14, 14).add(9, 12).add(9, 12))).render();
+  }
+
+  private static String formatTime(LongAdder nanos) {
+    return formatTime(nanos.sum());
+  }
+
+  private static String formatTime(long nanos) {
+    return String.format(Locale.ROOT, "%.1f ms", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+  }
+
+  /**
+   * The accumulated creation times of a bean class or a producer.
+   */
+  public static final class BeanStats {
+    private final String name;
+    private final LongAdder instances = new LongAdder();
+    private final LongAdder construct = new LongAdder();
+    private final LongAdder inject = new LongAdder();
+    private final LongAdder postConstruct = new LongAdder();
+    private final LongAdder produce = new LongAdder();
+
+    private BeanStats(String name) {
+      this.name = name;
+    }
+
+    public String getName() {
+      return this.name;
+    }
+
+    public long getInstances() {
+      return this.instances.sum();
+    }
+
+    public long getConstructNanos() {
+      return this.construct.sum();
+    }
+
+    public long getInjectNanos() {
+      return this.inject.sum();
+    }
+
+    public long getPostConstructNanos() {
+      return this.postConstruct.sum();
+    }
+
+    public long getProduceNanos() {
+      return this.produce.sum();
+    }
+
+    public long getTotalNanos() {
+      return this.construct.sum() + this.inject.sum() + this.postConstruct.sum() + this.produce.sum();
+    }
+  }
+
+  private static class ProfilingProducer<T> implements Producer<T> {
+    private final Producer<T> delegate;
+    private final BeanStats stats;
+
+    private ProfilingProducer(Producer<T> delegate, BeanStats stats) {
+      this.delegate = delegate;
+      this.stats = stats;
+    }
+
+    @Override
+    public T produce(CreationalContext<T> ctx) {
+      long start = System.nanoTime();
+      try {
+        return this.delegate.produce(ctx);
+      } finally {
+        this.stats.produce.add(System.nanoTime() - start);
+        this.stats.instances.increment();
+      }
+    }
+
+    @Override
+    public void dispose(T instance) {
+      this.delegate.dispose(instance);
+    }
+
+    @Override
+    public Set<InjectionPoint> getInjectionPoints() {
+      return this.delegate.getInjectionPoints();
+    }
+  }
+
+  private static class ProfilingInjectionTarget<T> implements InjectionTarget<T> {
+    private final InjectionTarget<T> delegate;
+    private final BeanStats stats;
+
+    private ProfilingInjectionTarget(InjectionTarget<T> delegate, BeanStats stats) {
+      this.delegate = delegate;
+      this.stats = stats;
+    }
+
+    @Override
+    public T produce(CreationalContext<T> ctx) {
+      long start = System.nanoTime();
+      try {
+        return this.delegate.produce(ctx);
+      } finally {
+        this.stats.construct.add(System.nanoTime() - start);
+        this.stats.instances.increment();
+      }
+    }
+
+    @Override
+    public void inject(T instance, CreationalContext<T> ctx) {
+      long start = System.nanoTime();
+      try {
+        this.delegate.inject(instance, ctx);
+      } finally {
+        this.stats.inject.add(System.nanoTime() - start);
+      }
+    }
+
+    @Override
+    public void postConstruct(T instance) {
+      long start = System.nanoTime();
+      try {
+        this.delegate.postConstruct(instance);
+      } finally {
+        this.stats.postConstruct.add(System.nanoTime() - start);
+      }
+    }
+
+    @Override
+    public void preDestroy(T instance) {
+      this.delegate.preDestroy(instance);
+    }
+
+    @Override
+    public void dispose(T instance) {
+      this.delegate.dispose(instance);
+    }
+
+    @Override
+    public Set<InjectionPoint> getInjectionPoints() {
+      return this.delegate.getInjectionPoints();
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package com.itemis.maven.plugins.cdi.internal.util;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import de.vandermeer.asciitable.AT_Context;
+import de.vandermeer.asciitable.AT_Renderer;
+import de.vandermeer.asciitable.AT_Row;
+import de.vandermeer.asciitable.AsciiTable;
+import de.vandermeer.asciitable.CWC_LongestLine;
+import de.vandermeer.asciithemes.u8.U8_Grids;
+import de.vandermeer.skb.interfaces.transformers.textformat.TextAlignment;
+
+/**
+ * Accumulates the time and counts of the bootstrap phases of a CDI Mojo, from the resolution of the plugin
+ * dependencies up to the instantiation of the processing step beans.<br>
+ * <br>
+ * Phases are reported in the order in which they have been entered first. A phase may be entered multiple times, f.i.
+ * once per plugin dependency, its times are summed up. Phases that are entered while another phase is running, such as
+ * the veto decisions during the bean discovery of Weld, are included in the time of the outer phase. A
+ * {@link #disabled() disabled} report does not record anything.
+ *
+ * @since 4.0.3
+ */
+public class BootstrapReport {
+  public static final String PHASE_DEPENDENCY_RESOLUTION = "plugin dependency resolution";
+  public static final String PHASE_CLASS_ENUMERATION = "class enumeration";
+  public static final String PHASE_CLASS_LOADING = "class loading";
+  public static final String PHASE_WELD_INITIALIZATION = "weld bean discovery and validation";
+  public static final String PHASE_STEP_VETOES = "step veto decisions";
+  public static final String PHASE_PRODUCER_REGISTRATION = "producer registration";
+  public static final String PHASE_STEP_INSTANTIATION = "step bean instantiation";
+
+  private static final Phase NOOP_PHASE = new Phase(null, 0);
+  private static final BootstrapReport DISABLED = new BootstrapReport(false);
+
+  private final boolean enabled;
+  private final Map<String, PhaseStats> phases;
+
+  public BootstrapReport() {
+    this(true);
+  }
+
+  private BootstrapReport(boolean enabled) {
+    this.enabled = enabled;
+    this.phases = Maps.newLinkedHashMap();
+  }
+
+  /**
+   * @return a shared report that does not record anything.
+   */
+  public static BootstrapReport disabled() {
+    return DISABLED;
+  }
+
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  /**
+   * Enters a phase. The time until the returned phase is {@link Phase#close() closed} is added to the phase.
+   *
+   * @param phase the name of the phase, f.i. {@link #PHASE_CLASS_LOADING}.
+   * @return the entered phase.
+   */
+  public Phase enter(String phase) {
+    if (!this.enabled) {
+      return NOOP_PHASE;
+    }
+    return new Phase(getStats(phase), System.nanoTime());
+  }
+
+  /**
+   * Adds to a counter of a phase, f.i. the number of classes that could not be loaded.
+   *
+   * @param phase the name of the phase.
+   * @param counter the name of the counter.
+   * @param delta the value to add.
+   */
+  public void count(String phase, String counter, long delta) {
+    if (this.enabled) {
+      PhaseStats stats = getStats(phase);
+      synchronized (stats) {
+        Long value = stats.counters.get(counter);
+        stats.counters.put(counter, value != null ? value + delta : delta);
+      }
+    }
+  }
+
+  private synchronized PhaseStats getStats(String phase) {
+    PhaseStats stats = this.phases.get(phase);
+    if (stats == null) {
+      stats = new PhaseStats();
+      this.phases.put(phase, stats);
+    }
+    return stats;
+  }
+
+  /**
+   * @return the time in nanoseconds spent in the phase or {@code -1} if the phase has not been entered.
+   */
+  public synchronized long getNanos(String phase) {
+    PhaseStats stats = this.phases.get(phase);
+    if (stats == null) {
+      return -1;
+    }
+    synchronized (stats) {
+      return stats.nanos;
+    }
+  }
+
+  /**
+   * @return the value of the counter of the phase or {@code 0} if nothing has been counted.
+   */
+  public synchronized long getCount(String phase, String counter) {
+    PhaseStats stats = this.phases.get(phase);
+    if (stats == null) {
+      return 0;
+    }
+    synchronized (stats) {
+      Long value = stats.counters.get(counter);
+      return value != null ? value : 0;
+    }
+  }
+
+  /**
+   * @return the rendered table of all phases.
+   */
+  public synchronized String render() {
+    AsciiTable table = new AsciiTable(new AT_Context().setGrid(U8_Grids.borderStrongDoubleLight()));
+    table.addRule();
+    AT_Row header = table.addRow("PHASE", "TIME", "COUNTS");
+    header.setTextAlignment(TextAlignment.CENTER);
+    table.addStrongRule();
+
+    for (Entry<String, PhaseStats> entry : this.phases.entrySet()) {
+      PhaseStats stats = entry.getValue();
+      List<String> counts = Lists.newArrayList();
+      long nanos;
+      synchronized (stats) {
+        nanos = stats.nanos;
+        for (Entry<String, Long> counter : stats.counters.entrySet()) {
+          counts.add(counter.getValue() + " " + counter.getKey());
+        }
+      }
+      String time = String.format(Locale.ROOT, "%.1f ms",
+          nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+      AT_Row data = table.addRow(entry.getKey(), time, Joiner.on(", ").join(counts));
+      data.setTextAlignment(TextAlignment.LEFT).setPaddingLeftRight(1);
+      data.getCells().get(1).getContext().setTextAlignment(TextAlignment.RIGHT);
+      table.addRule();
+    }
+
+    return table.setRenderer(AT_Renderer.create().setCWC(new CWC_LongestLine().add(10, 40).add(8, 12).add(10, 60)))
+        .render();
+  }
+
+  /**
+   * An entered phase.
+   */
+  public static final class Phase implements AutoCloseable {
+    private final PhaseStats stats;
+    private final long start;
+
+    private Phase(PhaseStats stats, long start) {
+      this.stats = stats;
+      this.start = start;
+    }
+
+    @Override
+    public void close() {
+      if (this.stats != null) {
+        long nanos = System.nanoTime() - this.start;
+        synchronized (this.stats) {
+          this.stats.nanos += nanos;
+        }
+      }
+    }
+  }
+
+  private static class PhaseStats {
+    private long nanos;
+    private final Map<String, Long> counters = Maps.newLinkedHashMap();
+  }
+}
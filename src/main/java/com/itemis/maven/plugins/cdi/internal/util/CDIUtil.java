@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AccessibleObject;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Set;
 import java.util.jar.JarEntry;
@@ -87,28 +88,58 @@ public class CDIUtil {
    */
   public static void addAllClasses(Weld weld, ClassLoader classLoader, File container, Log log)
       throws MojoExecutionException {
-    Set<String> classNames = null;
-    if (container.isFile() && container.getAbsolutePath().endsWith(".jar")) {
-      try {
-        JarFile jarFile = new JarFile(container);
-        classNames = getAllClassNames(jarFile);
-      } catch (IOException e) {
-        throw new MojoExecutionException("Could not load the following JAR file: " + container.getAbsolutePath(), e);
+    addAllClasses(weld, classLoader, container, log, BootstrapReport.disabled());
+  }
+
+  /**
+   * Queries the specified file container (folder or JAR file) for all class files and adds all found classes to the
+   * weld container so that these classes are later injectable.
+   *
+   * @param weld        the CDI container to add the classes to.
+   * @param classLoader the class loader used to query and load classes from the file container.
+   * @param container   the file container where to search classes. The container can be a folder or a JAR file.
+   * @param log         the log for processing output.
+   * @param report      the report to record the enumeration and loading of the classes in.
+   * @throws MojoExecutionException if it was not possible to query the file container.
+   * @since 4.0.3
+   */
+  public static void addAllClasses(Weld weld, ClassLoader classLoader, File container, Log log,
+      BootstrapReport report) throws MojoExecutionException {
+    try (FlightRecorderEvent.Event event = FlightRecorderEvent.BEAN_SCAN.begin(container.getAbsolutePath())) {
+      Set<String> classNames = Collections.emptySet();
+      try (BootstrapReport.Phase phase = report.enter(BootstrapReport.PHASE_CLASS_ENUMERATION)) {
+        if (container.isFile() && container.getAbsolutePath().endsWith(".jar")) {
+          try {
+            JarFile jarFile = new JarFile(container);
+            classNames = getAllClassNames(jarFile);
+          } catch (IOException e) {
+            throw new MojoExecutionException("Could not load the following JAR file: " + container.getAbsolutePath(),
+                e);
+          }
+          report.count(BootstrapReport.PHASE_CLASS_ENUMERATION, "jars", 1);
+        } else if (container.isDirectory()) {
+          classNames = getAllClassNames(container);
+          report.count(BootstrapReport.PHASE_CLASS_ENUMERATION, "folders", 1);
+        }
       }
-    } else if (container.isDirectory()) {
-      classNames = getAllClassNames(container);
-    }
 
-    for (String className : classNames) {
-      try {
-        Class<?> cls = classLoader.loadClass(className);
-        weld.addBeanClass(cls);
-      } catch (ClassNotFoundException e) {
-        log.error("Could not load the following class which might cause later issues: " + className);
-        if (log.isDebugEnabled()) {
-          log.debug(e);
+      int failures = 0;
+      try (BootstrapReport.Phase phase = report.enter(BootstrapReport.PHASE_CLASS_LOADING)) {
+        for (String className : classNames) {
+          try {
+            Class<?> cls = classLoader.loadClass(className);
+            weld.addBeanClass(cls);
+          } catch (ClassNotFoundException e) {
+            failures++;
+            log.error("Could not load the following class which might cause later issues: " + className);
+            if (log.isDebugEnabled()) {
+              log.debug(e);
+            }
+          }
         }
       }
+      report.count(BootstrapReport.PHASE_CLASS_LOADING, "classes loaded", classNames.size() - failures);
+      report.count(BootstrapReport.PHASE_CLASS_LOADING, "classes failed to load", failures);
     }
   }
 
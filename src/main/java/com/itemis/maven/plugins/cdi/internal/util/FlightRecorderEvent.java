@@ -0,0 +1,178 @@
+package com.itemis.maven.plugins.cdi.internal.util;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Custom <a href="https://docs.oracle.com/en/java/javase/17/jfapi/">Java Flight Recorder</a> event types for the phases
+ * of a CDI Mojo execution. The event types are registered under the category <i>Maven / CDI Plugin Utils</i> and are
+ * enabled by the standard JFR settings.<br>
+ * <br>
+ * Since this library still supports Java 8, the event types are defined using the <code>jdk.jfr.EventFactory</code>
+ * which is accessed reflectively. If the JFR API is not available, all event types are disabled. Events are only
+ * created while a recording is running that has the respective event type enabled, otherwise
+ * {@link #begin(Object...)} returns a shared no-op event.
+ *
+ * @since 4.0.3
+ */
+public final class FlightRecorderEvent {
+  private static final String NAME_PREFIX = "com.itemis.maven.plugins.cdi.";
+  private static final String[] CATEGORY = { "Maven", "CDI Plugin Utils" };
+  private static final Event NOOP_EVENT = new Event(null);
+
+  public static final FlightRecorderEvent STEP_EXECUTION = define("StepExecution", "Workflow Step Execution",
+      "The execution of a workflow step", "goal", "Goal", "step", "Step");
+  public static final FlightRecorderEvent ROLLBACK = define("Rollback", "Rollback Method Invocation",
+      "The invocation of a rollback method of a workflow step", "step", "Step", "method", "Rollback Method");
+  public static final FlightRecorderEvent BEAN_SCAN = define("BeanScan", "Bean Class Scan",
+      "The scan of a plugin dependency for classes to add to the CDI container", "container", "Container");
+  public static final FlightRecorderEvent WELD_BOOTSTRAP = define("WeldBootstrap", "Weld Bootstrap",
+      "The initialization of the Weld CDI container");
+
+  private static Method isEnabledMethod;
+  private static Method newEventMethod;
+  private static Method setMethod;
+  private static Method beginMethod;
+  private static Method endMethod;
+  private static Method shouldCommitMethod;
+  private static Method commitMethod;
+
+  private final Object factory;
+  private final Object eventType;
+
+  private FlightRecorderEvent(Object factory, Object eventType) {
+    this.factory = factory;
+    this.eventType = eventType;
+  }
+
+  /**
+   * @param name the simple name of the event type.
+   * @param label the human readable label of the event type.
+   * @param description the description of the event type.
+   * @param fields alternating names and labels of the string fields of the event type.
+   * @return the event type which is disabled if the JFR API is not available.
+   */
+  private static FlightRecorderEvent define(String name, String label, String description, String... fields) {
+    try {
+      ClassLoader cl = ClassLoader.getSystemClassLoader();
+      Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement", true, cl);
+      Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor", true, cl);
+      Class<?> eventFactoryClass = Class.forName("jdk.jfr.EventFactory", true, cl);
+      Constructor<?> annotationElement = annotationElementClass.getConstructor(Class.class, Object.class);
+      Constructor<?> valueDescriptor = valueDescriptorClass.getConstructor(Class.class, String.class, List.class);
+
+      List<Object> annotations = Lists.newArrayList(
+          annotationElement.newInstance(annotationType("jdk.jfr.Name"), NAME_PREFIX + name),
+          annotationElement.newInstance(annotationType("jdk.jfr.Label"), label),
+          annotationElement.newInstance(annotationType("jdk.jfr.Description"), description),
+          annotationElement.newInstance(annotationType("jdk.jfr.Category"), CATEGORY));
+      List<Object> valueDescriptors = Lists.newArrayList();
+      for (int i = 0; i + 1 < fields.length; i += 2) {
+        valueDescriptors.add(valueDescriptor.newInstance(String.class, fields[i],
+            Arrays.asList(annotationElement.newInstance(annotationType("jdk.jfr.Label"), fields[i + 1]))));
+      }
+
+      Object factory = eventFactoryClass.getMethod("create", List.class, List.class).invoke(null, annotations,
+          valueDescriptors);
+      Object eventType = eventFactoryClass.getMethod("getEventType").invoke(factory);
+      initMethods(eventFactoryClass, eventType.getClass());
+      return new FlightRecorderEvent(factory, eventType);
+    } catch (Throwable t) {
+      // JFR is not available in this JVM
+      return new FlightRecorderEvent(null, null);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Class<? extends Annotation> annotationType(String name) throws ClassNotFoundException {
+    return (Class<? extends Annotation>) Class.forName(name, true, ClassLoader.getSystemClassLoader());
+  }
+
+  private static synchronized void initMethods(Class<?> eventFactoryClass, Class<?> eventTypeClass)
+      throws ReflectiveOperationException {
+    if (newEventMethod == null) {
+      Class<?> eventClass = Class.forName("jdk.jfr.Event", true, ClassLoader.getSystemClassLoader());
+      isEnabledMethod = eventTypeClass.getMethod("isEnabled");
+      setMethod = eventClass.getMethod("set", int.class, Object.class);
+      beginMethod = eventClass.getMethod("begin");
+      endMethod = eventClass.getMethod("end");
+      shouldCommitMethod = eventClass.getMethod("shouldCommit");
+      commitMethod = eventClass.getMethod("commit");
+      newEventMethod = eventFactoryClass.getMethod("newEvent");
+    }
+  }
+
+  /**
+   * @return {@code true} if a running recording has enabled this event type.
+   */
+  public boolean isEnabled() {
+    if (this.eventType == null) {
+      return false;
+    }
+    try {
+      return (Boolean) isEnabledMethod.invoke(this.eventType);
+    } catch (ReflectiveOperationException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Begins the timing of an event of this type.
+   *
+   * @param values the values of the fields of the event in the order of their definition.
+   * @return the started event which must be {@link Event#commit() committed}.
+   */
+  public Event begin(Object... values) {
+    if (!isEnabled()) {
+      return NOOP_EVENT;
+    }
+    try {
+      Object event = newEventMethod.invoke(this.factory);
+      for (int i = 0; i < values.length; i++) {
+        setMethod.invoke(event, i, values[i]);
+      }
+      beginMethod.invoke(event);
+      return new Event(event);
+    } catch (ReflectiveOperationException e) {
+      return NOOP_EVENT;
+    }
+  }
+
+  /**
+   * A started event.
+   */
+  public static final class Event implements AutoCloseable {
+    private final Object event;
+
+    private Event(Object event) {
+      this.event = event;
+    }
+
+    /**
+     * Ends the timing of the event and commits it to the recording if it exceeds the configured threshold.
+     */
+    public void commit() {
+      if (this.event == null) {
+        return;
+      }
+      try {
+        endMethod.invoke(this.event);
+        if ((Boolean) shouldCommitMethod.invoke(this.event)) {
+          commitMethod.invoke(this.event);
+        }
+      } catch (ReflectiveOperationException e) {
+        // the event is dropped
+      }
+    }
+
+    @Override
+    public void close() {
+      commit();
+    }
+  }
+}
@@ -0,0 +1,281 @@
+package com.itemis.maven.plugins.cdi.internal.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Maps;
+import com.itemis.maven.plugins.cdi.WorkflowEvent;
+import com.itemis.maven.plugins.cdi.WorkflowListener;
+
+/**
+ * Records a timeline of the container bootstrap and the workflow execution in the
+ * <a href="https://docs.google.com/document/d/1CvAClvFfyA5R-PhYUmn5OOQtYMH4h6I0nSsKchNAySU">trace event format</a> that
+ * can be opened using <code>chrome://tracing</code> or <a href="https://ui.perfetto.dev">Perfetto</a>.<br>
+ * <br>
+ * Spans are recorded on the thread on which they are started, thus the steps of parallel blocks show up in their own
+ * lanes. As a {@link WorkflowListener} the recorder traces the workflow, each step execution and the rollbacks. A
+ * {@link #disabled() disabled} recorder does not record anything.
+ *
+ * @since 4.0.3
+ */
+public class TraceRecorder implements WorkflowListener {
+  public static final String CATEGORY_MAVEN = "maven";
+  public static final String CATEGORY_CDI = "cdi";
+  public static final String CATEGORY_WORKFLOW = "workflow";
+
+  private static final Span NOOP_SPAN = new Span(null, null, null);
+  private static final TraceRecorder DISABLED = new TraceRecorder(false);
+
+  private final boolean enabled;
+  private final long originNanos;
+  private final Queue<TraceEvent> events;
+  private final ConcurrentMap<Long, String> threadNames;
+  private final ConcurrentMap<String, Long> stepStarts;
+  private final ConcurrentMap<String, Long> stepRollbackStarts;
+  private volatile long workflowStart;
+  private volatile long rollbackStart;
+  private volatile Long finallyStart;
+
+  public TraceRecorder() {
+    this(true);
+  }
+
+  private TraceRecorder(boolean enabled) {
+    this.enabled = enabled;
+    this.originNanos = System.nanoTime();
+    this.events = new ConcurrentLinkedQueue<>();
+    this.threadNames = Maps.newConcurrentMap();
+    this.stepStarts = Maps.newConcurrentMap();
+    this.stepRollbackStarts = Maps.newConcurrentMap();
+  }
+
+  /**
+   * @return a shared recorder that does not record anything.
+   */
+  public static TraceRecorder disabled() {
+    return DISABLED;
+  }
+
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  /**
+   * Starts a span on the current thread. The span must be {@link Span#close() closed} on the same thread.
+   *
+   * @param category the category of the span, f.i. {@link #CATEGORY_CDI}.
+   * @param name the name of the span.
+   * @return the started span.
+   */
+  public Span begin(String category, String name) {
+    if (!this.enabled) {
+      return NOOP_SPAN;
+    }
+    return new Span(this, category, name);
+  }
+
+  private void record(String category, String name, long startNanos, long endNanos, Thread thread) {
+    this.threadNames.putIfAbsent(thread.getId(), thread.getName());
+    this.events.add(new TraceEvent(category, name, startNanos, endNanos, thread.getId()));
+  }
+
+  private void record(String category, String name, long startNanos, WorkflowEvent event) {
+    this.threadNames.putIfAbsent(event.getThreadId(), event.getThreadName());
+    this.events.add(new TraceEvent(category, name, startNanos, event.getNanoTime(), event.getThreadId()));
+  }
+
+  @Override
+  public void workflowStarted(WorkflowEvent event) {
+    this.workflowStart = event.getNanoTime();
+  }
+
+  @Override
+  public void workflowFinished(WorkflowEvent event) {
+    Long finallyStart = this.finallyStart;
+    if (finallyStart != null) {
+      // the finally steps are the last part of the workflow
+      record(CATEGORY_WORKFLOW, "finally", finallyStart, event);
+      this.finallyStart = null;
+    }
+    record(CATEGORY_WORKFLOW, "workflow " + event.getGoalName(), this.workflowStart, event);
+  }
+
+  @Override
+  public void stepStarted(WorkflowEvent event) {
+    this.stepStarts.put(event.getCompositeStepId().get(), event.getNanoTime());
+  }
+
+  @Override
+  public void stepFinished(WorkflowEvent event) {
+    String stepId = event.getCompositeStepId().get();
+    Long start = this.stepStarts.remove(stepId);
+    if (start != null) {
+      record(CATEGORY_WORKFLOW, stepId, start, event);
+    }
+  }
+
+  @Override
+  public void stepFailed(WorkflowEvent event) {
+    String stepId = event.getCompositeStepId().get();
+    Long start = this.stepStarts.remove(stepId);
+    if (start != null) {
+      record(CATEGORY_WORKFLOW, stepId + " (failed)", start, event);
+    }
+  }
+
+  @Override
+  public void rollbackStarted(WorkflowEvent event) {
+    this.rollbackStart = event.getNanoTime();
+  }
+
+  @Override
+  public void stepRollbackStarted(WorkflowEvent event) {
+    this.stepRollbackStarts.put(event.getCompositeStepId().get(), event.getNanoTime());
+  }
+
+  @Override
+  public void stepRollbackFinished(WorkflowEvent event) {
+    String stepId = event.getCompositeStepId().get();
+    Long start = this.stepRollbackStarts.remove(stepId);
+    if (start != null) {
+      record(CATEGORY_WORKFLOW, "rollback " + stepId, start, event);
+    }
+  }
+
+  @Override
+  public void rollbackFinished(WorkflowEvent event) {
+    record(CATEGORY_WORKFLOW, "rollback", this.rollbackStart, event);
+  }
+
+  @Override
+  public void finallyStarted(WorkflowEvent event) {
+    this.finallyStart = event.getNanoTime();
+  }
+
+  /**
+   * Writes the recorded trace events as JSON.
+   *
+   * @param file the file to write the trace to.
+   * @throws IOException if the file could not be written.
+   */
+  public void write(File file) throws IOException {
+    File dir = file.getAbsoluteFile().getParentFile();
+    if (dir != null) {
+      Files.createDirectories(dir.toPath());
+    }
+    try (Writer w = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+      write(w);
+    }
+  }
+
+  /**
+   * Writes the recorded trace events as JSON.
+   *
+   * @param w the writer to write the trace to.
+   * @throws IOException if the trace could not be written.
+   */
+  public void write(Writer w) throws IOException {
+    w.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+    w.write("{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":1,\"tid\":0,\"args\":{\"name\":\"maven\"}}");
+    for (Entry<Long, String> thread : this.threadNames.entrySet()) {
+      w.write(",\n{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":" + thread.getKey()
+          + ",\"args\":{\"name\":" + quote(thread.getValue()) + "}}");
+    }
+    for (TraceEvent event : this.events) {
+      long ts = toMicros(event.startNanos);
+      w.write(",\n{\"name\":" + quote(event.name) + ",\"cat\":" + quote(event.category) + ",\"ph\":\"X\",\"ts\":" + ts
+          + ",\"dur\":" + Math.max(0, toMicros(event.endNanos) - ts) + ",\"pid\":1,\"tid\":" + event.threadId + "}");
+    }
+    w.write("\n]}\n");
+  }
+
+  /**
+   * @return the number of recorded spans.
+   */
+  public int size() {
+    return this.events.size();
+  }
+
+  private long toMicros(long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos - this.originNanos);
+  }
+
+  private static String quote(String s) {
+    StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      switch (c) {
+        case '"':
+          sb.append("\\\"");
+          break;
+        case '\\':
+          sb.append("\\\\");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '\r':
+          sb.append("\\r");
+          break;
+        case '\t':
+          sb.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            sb.append(String.format("\\u%04x", (int) c));
+          } else {
+            sb.append(c);
+          }
+      }
+    }
+    return sb.append('"').toString();
+  }
+
+  /**
+   * A span of the timeline which is recorded when it is closed.
+   */
+  public static final class Span implements AutoCloseable {
+    private final TraceRecorder recorder;
+    private final String category;
+    private final String name;
+    private final long startNanos;
+
+    private Span(TraceRecorder recorder, String category, String name) {
+      this.recorder = recorder;
+      this.category = category;
+      this.name = name;
+      this.startNanos = recorder != null ? System.nanoTime() : 0;
+    }
+
+    @Override
+    public void close() {
+      if (this.recorder != null) {
+        this.recorder.record(this.category, this.name, this.startNanos, System.nanoTime(), Thread.currentThread());
+      }
+    }
+  }
+
+  private static final class TraceEvent {
+    private final String category;
+    private final String name;
+    private final long startNanos;
+    private final long endNanos;
+    private final long threadId;
+
+    private TraceEvent(String category, String name, long startNanos, long endNanos, long threadId) {
+      this.category = category;
+      this.name = name;
+      this.startNanos = startNanos;
+      this.endNanos = endNanos;
+      this.threadId = threadId;
+    }
+  }
+}
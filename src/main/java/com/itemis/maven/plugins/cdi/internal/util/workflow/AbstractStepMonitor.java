@@ -0,0 +1,183 @@
+package com.itemis.maven.plugins.cdi.internal.util.workflow;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.itemis.maven.plugins.cdi.WorkflowEvent;
+import com.itemis.maven.plugins.cdi.WorkflowListener;
+
+import de.vandermeer.asciitable.AT_Context;
+import de.vandermeer.asciitable.AT_Row;
+import de.vandermeer.asciitable.AsciiTable;
+import de.vandermeer.asciithemes.u8.U8_Grids;
+import de.vandermeer.skb.interfaces.transformers.textformat.TextAlignment;
+
+/**
+ * A base class for workflow listeners that sample each step execution using the {@link ThreadMXBean}. Since the
+ * workflow listener callbacks of a step are invoked on the thread that executes the step, the samples are taken for
+ * that thread, also for the worker threads of parallel blocks. Subclasses enable the measurements they require when
+ * the workflow starts and restore them when the workflow finishes.
+ *
+ * @param <S> the type of the samples.
+ * @since 4.0.3
+ */
+public abstract class AbstractStepMonitor<S extends AbstractStepMonitor.Sample> implements WorkflowListener {
+  protected final ThreadMXBean threadMXBean;
+  private final Map<String, S> running;
+  private final List<S> completed;
+
+  protected AbstractStepMonitor() {
+    this.threadMXBean = ManagementFactory.getThreadMXBean();
+    this.running = Maps.newConcurrentMap();
+    this.completed = Lists.newArrayList();
+  }
+
+  @Override
+  public void stepStarted(WorkflowEvent event) {
+    S sample = startSample(event);
+    if (sample != null) {
+      this.running.put(sample.getStepId(), sample);
+    }
+  }
+
+  @Override
+  public void stepFinished(WorkflowEvent event) {
+    complete(event, false);
+  }
+
+  @Override
+  public void stepFailed(WorkflowEvent event) {
+    complete(event, true);
+  }
+
+  private void complete(WorkflowEvent event, boolean failed) {
+    S sample = this.running.remove(event.getCompositeStepId().get());
+    if (sample == null) {
+      return;
+    }
+    ((Sample) sample).failed = failed;
+    if (completeSample(sample, event)) {
+      synchronized (this.completed) {
+        this.completed.add(sample);
+      }
+    }
+  }
+
+  /**
+   * Takes the sample at the start of a step execution on the thread that executes the step.
+   *
+   * @param event the step started event.
+   * @return the started sample or {@code null} if the step cannot be sampled.
+   */
+  protected abstract S startSample(WorkflowEvent event);
+
+  /**
+   * Completes the sample at the end of a step execution on the thread that executes the step.
+   *
+   * @param sample the sample that has been started for the step.
+   * @param event the step finished or failed event.
+   * @return {@code true} if the sample shall be retained.
+   */
+  protected abstract boolean completeSample(S sample, WorkflowEvent event);
+
+  /**
+   * @return the samples of the steps that are currently running.
+   */
+  protected Collection<S> getRunningSamples() {
+    return ImmutableList.copyOf(this.running.values());
+  }
+
+  /**
+   * @param comparator the order of the returned samples.
+   * @return a sorted copy of the samples of all completed step executions.
+   */
+  protected List<S> getCompletedSamples(Comparator<? super S> comparator) {
+    List<S> samples;
+    synchronized (this.completed) {
+      samples = Lists.newArrayList(this.completed);
+    }
+    Collections.sort(samples, comparator);
+    return samples;
+  }
+
+  /**
+   * @return the number of sampled step executions.
+   */
+  public int size() {
+    synchronized (this.completed) {
+      return this.completed.size();
+    }
+  }
+
+  /**
+   * @param headers the column headers.
+   * @return a new table with a centered header row.
+   */
+  protected static AsciiTable createTable(String... headers) {
+    AsciiTable table = new AsciiTable(new AT_Context().setGrid(U8_Grids.borderStrongDoubleLight()));
+    table.addRule();
+    AT_Row header = table.addRow((Object[]) headers);
+    header.setTextAlignment(TextAlignment.CENTER);
+    table.addStrongRule();
+    return table;
+  }
+
+  /**
+   * Adds a row for a sample. The first two cells are the step and the thread, followed by the measured values.
+   *
+   * @param table the table to add the row to.
+   * @param sample the sample.
+   * @param values the measured values.
+   */
+  protected static void addSampleRow(AsciiTable table, Sample sample, Object... values) {
+    Object[] cells = new Object[values.length + 2];
+    cells[0] = sample.failed ? sample.stepId + " (failed)" : sample.stepId;
+    cells[1] = sample.threadName;
+    System.arraycopy(values, 0, cells, 2, values.length);
+    AT_Row data = table.addRow(cells);
+    data.setTextAlignment(TextAlignment.RIGHT).setPaddingLeftRight(1);
+    data.getCells().get(0).getContext().setTextAlignment(TextAlignment.LEFT);
+    data.getCells().get(1).getContext().setTextAlignment(TextAlignment.LEFT);
+    table.addRule();
+  }
+
+  /**
+   * The measurements of a single step execution.
+   */
+  protected static class Sample {
+    private final String stepId;
+    private final long threadId;
+    private final String threadName;
+    private boolean failed;
+
+    protected Sample(WorkflowEvent event) {
+      this.stepId = event.getCompositeStepId().get();
+      this.threadId = event.getThreadId();
+      this.threadName = event.getThreadName();
+    }
+
+    public String getStepId() {
+      return this.stepId;
+    }
+
+    public long getThreadId() {
+      return this.threadId;
+    }
+
+    public String getThreadName() {
+      return this.threadName;
+    }
+
+    public boolean isFailed() {
+      return this.failed;
+    }
+  }
+}
@@ -0,0 +1,160 @@
+package com.itemis.maven.plugins.cdi.internal.util.workflow;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.plugin.logging.Log;
+
+import com.google.common.collect.Maps;
+
+/**
+ * A thread pool for the execution of parallel workflow steps that tunes its number of worker threads while the workflow
+ * runs.<br>
+ * <br>
+ * The pool periodically samples the CPU time of its busy worker threads against the elapsed wall time. Following
+ * <i>threads = cores * (1 + wait time / cpu time)</i> CPU-bound steps shrink the pool towards the number of available
+ * cores while steps that mostly wait for I/O grow the pool as long as there are queued steps. The pool size is always
+ * kept between the configured minimum and maximum. A minimum that exceeds the maximum is lowered to the maximum.
+ *
+ * @since 4.0.3
+ */
+public class AdaptiveThreadPool extends ThreadPoolExecutor {
+  private static final long SAMPLING_INTERVAL_MILLIS = 500;
+
+  private final int minThreads;
+  private final int maxThreads;
+  private final int cores;
+  private final Log log;
+  private final ThreadMXBean threadMXBean;
+  private final Map<Thread, Long> workerCpuTimes;
+  private final ScheduledExecutorService sampler;
+  private boolean cpuTimeEnabledByPool;
+  private long lastSampleNanos;
+
+  /**
+   * @param minThreads the minimum number of worker threads.
+   * @param maxThreads the maximum number of worker threads.
+   * @param log the log for processing output.
+   */
+  public AdaptiveThreadPool(int minThreads, int maxThreads, Log log) {
+    super(initialSize(minThreads, maxThreads), maxSize(maxThreads), 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>());
+    this.minThreads = minSize(minThreads, maxThreads);
+    this.maxThreads = maxSize(maxThreads);
+    if (minThreads > this.maxThreads) {
+      log.warn("The minimum number of workflow threads (" + minThreads + ") exceeds the maximum (" + this.maxThreads
+          + "). Using " + this.maxThreads + " as the minimum.");
+    }
+    this.cores = Runtime.getRuntime().availableProcessors();
+    this.log = log;
+    this.threadMXBean = ManagementFactory.getThreadMXBean();
+    this.workerCpuTimes = Maps.newConcurrentMap();
+
+    final AtomicInteger threadCount = new AtomicInteger();
+    setThreadFactory(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = Executors.defaultThreadFactory().newThread(r);
+        t.setName("workflow-worker-" + threadCount.incrementAndGet());
+        AdaptiveThreadPool.this.workerCpuTimes.put(t, -1L);
+        return t;
+      }
+    });
+
+    this.sampler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "workflow-parallelism-sampler");
+        t.setDaemon(true);
+        return t;
+      }
+    });
+    if (this.threadMXBean.isThreadCpuTimeSupported()) {
+      if (!this.threadMXBean.isThreadCpuTimeEnabled()) {
+        this.threadMXBean.setThreadCpuTimeEnabled(true);
+        this.cpuTimeEnabledByPool = true;
+      }
+      this.lastSampleNanos = System.nanoTime();
+      this.sampler.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          adjustPoolSize();
+        }
+      }, SAMPLING_INTERVAL_MILLIS, SAMPLING_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    } else {
+      log.warn("Thread CPU time measurement is not supported by this JVM. Adaptive parallelism falls back to "
+          + getCorePoolSize() + " threads.");
+    }
+  }
+
+  private static int minSize(int minThreads, int maxThreads) {
+    return Math.min(Math.max(1, minThreads), maxSize(maxThreads));
+  }
+
+  private static int maxSize(int maxThreads) {
+    return Math.max(1, maxThreads);
+  }
+
+  private static int initialSize(int minThreads, int maxThreads) {
+    int cores = Runtime.getRuntime().availableProcessors();
+    return Math.max(minSize(minThreads, maxThreads), Math.min(cores, maxSize(maxThreads)));
+  }
+
+  private void adjustPoolSize() {
+    long now = System.nanoTime();
+    long wallTime = now - this.lastSampleNanos;
+    this.lastSampleNanos = now;
+
+    long cpuTime = 0;
+    int sampledThreads = 0;
+    for (Map.Entry<Thread, Long> entry : this.workerCpuTimes.entrySet()) {
+      Thread t = entry.getKey();
+      if (!t.isAlive()) {
+        this.workerCpuTimes.remove(t);
+        continue;
+      }
+      long threadCpuTime = this.threadMXBean.getThreadCpuTime(t.getId());
+      long previousCpuTime = entry.getValue();
+      entry.setValue(threadCpuTime);
+      if (previousCpuTime >= 0 && threadCpuTime >= 0) {
+        cpuTime += threadCpuTime - previousCpuTime;
+        sampledThreads++;
+      }
+    }
+
+    int active = getActiveCount();
+    if (active == 0 || sampledThreads == 0 || wallTime <= 0) {
+      return;
+    }
+
+    // cpu utilization of the busy workers: 1 = purely CPU-bound, close to 0 = mostly waiting
+    double utilization = Math.min(1d, Math.max(0.01d, (double) cpuTime / (wallTime * active)));
+    int target = (int) Math.round(this.cores / utilization);
+    target = Math.max(this.minThreads, Math.min(this.maxThreads, target));
+
+    int current = getCorePoolSize();
+    if (target < current || (target > current && !getQueue().isEmpty())) {
+      this.log.debug("Adjusting the number of workflow threads from " + current + " to " + target
+          + " (cpu utilization " + Math.round(utilization * 100) + "%).");
+      setCorePoolSize(target);
+    }
+  }
+
+  @Override
+  protected void terminated() {
+    this.sampler.shutdownNow();
+    if (this.cpuTimeEnabledByPool) {
+      // the flag is JVM-wide, hand it back in the state we found it in
+      this.threadMXBean.setThreadCpuTimeEnabled(false);
+    }
+    super.terminated();
+  }
+}
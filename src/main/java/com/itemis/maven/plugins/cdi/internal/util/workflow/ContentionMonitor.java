@@ -0,0 +1,216 @@
+package com.itemis.maven.plugins.cdi.internal.util.workflow;
+
+import java.lang.Thread.State;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.itemis.maven.plugins.cdi.WorkflowEvent;
+
+import de.vandermeer.asciitable.AT_Renderer;
+import de.vandermeer.asciitable.AT_Row;
+import de.vandermeer.asciitable.AsciiTable;
+import de.vandermeer.asciitable.CWC_LongestLine;
+import de.vandermeer.skb.interfaces.transformers.textformat.TextAlignment;
+
+/**
+ * Reports the thread contention of the workflow steps using the contention monitoring of the {@link ThreadMXBean}.
+ * <br>
+ * <br>
+ * The blocked and waited times and counts of each step are taken from the thread that executes the step. While the
+ * workflow is running, the threads of all running steps are additionally sampled in a fixed interval. Each sample of a
+ * thread that is blocked on a monitor or waits for a lock is accounted to the lock and its owner, which reveals the
+ * most contended locks, f.i. a shared provider bean or logger.
+ *
+ * @since 4.0.3
+ */
+public class ContentionMonitor extends AbstractStepMonitor<ContentionMonitor.Contention> {
+  private static final long DEFAULT_SAMPLING_INTERVAL_MILLIS = 10;
+
+  private final long samplingIntervalMillis;
+  private final Map<Lock, Long> lockSamples;
+  private ScheduledExecutorService sampler;
+  private boolean contentionMonitoringWasEnabled;
+
+  public ContentionMonitor() {
+    this(DEFAULT_SAMPLING_INTERVAL_MILLIS);
+  }
+
+  public ContentionMonitor(long samplingIntervalMillis) {
+    this.samplingIntervalMillis = samplingIntervalMillis;
+    this.lockSamples = Maps.newHashMap();
+  }
+
+  @Override
+  public synchronized void workflowStarted(WorkflowEvent event) {
+    if (this.threadMXBean.isThreadContentionMonitoringSupported()) {
+      this.contentionMonitoringWasEnabled = this.threadMXBean.isThreadContentionMonitoringEnabled();
+      this.threadMXBean.setThreadContentionMonitoringEnabled(true);
+    }
+    this.sampler = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("contention-monitor").setDaemon(true).build());
+    this.sampler.scheduleAtFixedRate(new Runnable() {
+      @Override
+      public void run() {
+        sampleLocks();
+      }
+    }, this.samplingIntervalMillis, this.samplingIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public synchronized void workflowFinished(WorkflowEvent event) {
+    if (this.sampler != null) {
+      this.sampler.shutdownNow();
+      this.sampler = null;
+    }
+    if (this.threadMXBean.isThreadContentionMonitoringSupported() && !this.contentionMonitoringWasEnabled) {
+      this.threadMXBean.setThreadContentionMonitoringEnabled(false);
+    }
+  }
+
+  @Override
+  protected Contention startSample(WorkflowEvent event) {
+    ThreadInfo info = this.threadMXBean.getThreadInfo(event.getThreadId());
+    if (info == null) {
+      return null;
+    }
+    Contention sample = new Contention(event);
+    sample.blockedCount = info.getBlockedCount();
+    sample.blockedTime = info.getBlockedTime();
+    sample.waitedCount = info.getWaitedCount();
+    sample.waitedTime = info.getWaitedTime();
+    return sample;
+  }
+
+  @Override
+  protected boolean completeSample(Contention sample, WorkflowEvent event) {
+    ThreadInfo info = this.threadMXBean.getThreadInfo(event.getThreadId());
+    if (info == null) {
+      return false;
+    }
+    sample.blockedCount = info.getBlockedCount() - sample.blockedCount;
+    sample.blockedTime = delta(sample.blockedTime, info.getBlockedTime());
+    sample.waitedCount = info.getWaitedCount() - sample.waitedCount;
+    sample.waitedTime = delta(sample.waitedTime, info.getWaitedTime());
+    return true;
+  }
+
+  private static long delta(long start, long end) {
+    // the times are -1 if contention monitoring is not supported
+    return start < 0 || end < 0 ? -1 : end - start;
+  }
+
+  private void sampleLocks() {
+    for (Contention sample : getRunningSamples()) {
+      ThreadInfo info = this.threadMXBean.getThreadInfo(sample.getThreadId());
+      if (info != null && info.getLockName() != null) {
+        Lock lock = new Lock(info.getLockName(), info.getLockOwnerName(), info.getThreadState());
+        synchronized (this.lockSamples) {
+          Long count = this.lockSamples.get(lock);
+          this.lockSamples.put(lock, count != null ? count + 1 : 1);
+        }
+      }
+    }
+  }
+
+  /**
+   * Renders the blocked and waited times per step, sorted by the sum of both, and the most contended locks.
+   *
+   * @param maxLocks the maximum number of locks to render.
+   * @return the rendered tables.
+   */
+  public String render(int maxLocks) {
+    AsciiTable steps = createTable("STEP", "THREAD", "BLOCKED", "BLOCKED TIME", "WAITED", "WAITED TIME");
+    for (Contention sample : getCompletedSamples(new Comparator<Contention>() {
+      @Override
+      public int compare(Contention s1, Contention s2) {
+        return Long.compare(s2.blockedTime + s2.waitedTime, s1.blockedTime + s1.waitedTime);
+      }
+    })) {
+      addSampleRow(steps, sample, sample.blockedCount, formatTime(sample.blockedTime), sample.waitedCount,
+          formatTime(sample.waitedTime));
+    }
+
+    List<Entry<Lock, Long>> locks;
+    synchronized (this.lockSamples) {
+      locks = Lists.newArrayList(this.lockSamples.entrySet());
+    }
+    Collections.sort(locks, new Comparator<Entry<Lock, Long>>() {
+      @Override
+      public int compare(Entry<Lock, Long> e1, Entry<Lock, Long> e2) {
+        return Long.compare(e2.getValue(), e1.getValue());
+      }
+    });
+
+    AsciiTable lockTable = createTable("LOCK", "OWNER", "STATE", "SAMPLES");
+    for (Entry<Lock, Long> entry : locks.subList(0, Math.min(maxLocks, locks.size()))) {
+      Lock lock = entry.getKey();
+      AT_Row data = lockTable.addRow(lock.name, lock.owner != null ? lock.owner : "-", lock.state, entry.getValue());
+      data.setTextAlignment(TextAlignment.LEFT).setPaddingLeftRight(1);
+      data.getCells().get(3).getContext().setTextAlignment(TextAlignment.RIGHT);
+      lockTable.addRule();
+    }
+
+    return steps.setRenderer(AT_Renderer.create().setCWC(new CWC_LongestLine().add(10, 50).add(6, 30).add(7, 9)
+        .add(12, 14).add(6, 9).add(11, 14))).render() + '\n'
+        + lockTable.setRenderer(AT_Renderer.create().setCWC(new CWC_LongestLine().add(10, 60).add(6, 30)
+            .add(7, 13).add(7, 9))).render();
+  }
+
+  private static String formatTime(long millis) {
+    if (millis < 0) {
+      return "n/a";
+    }
+    return String.format(Locale.ROOT, "%d ms", millis);
+  }
+
+  static class Contention extends AbstractStepMonitor.Sample {
+    private long blockedCount;
+    private long blockedTime;
+    private long waitedCount;
+    private long waitedTime;
+
+    private Contention(WorkflowEvent event) {
+      super(event);
+    }
+  }
+
+  private static final class Lock {
+    private final String name;
+    private final String owner;
+    private final State state;
+
+    private Lock(String name, String owner, State state) {
+      this.name = name;
+      this.owner = owner;
+      this.state = state;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(this.name, this.owner, this.state);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (other instanceof Lock) {
+        Lock otherLock = (Lock) other;
+        return Objects.equal(this.name, otherLock.name) && Objects.equal(this.owner, otherLock.owner)
+            && this.state == otherLock.state;
+      }
+      return false;
+    }
+  }
+}
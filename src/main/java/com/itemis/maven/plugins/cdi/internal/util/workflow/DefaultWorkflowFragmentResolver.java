@@ -0,0 +1,198 @@
+package com.itemis.maven.plugins.cdi.internal.util.workflow;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+/**
+ * The default resolver for workflow fragments. Fragments are looked up in the following order:
+ * <ol>
+ * <li>relative to the base directory, f.i. the directory of a custom workflow descriptor</li>
+ * <li>as an absolute file path</li>
+ * <li>as a resource in {@value WorkflowUtil#DEFAULT_WORKFLOW_DIR} on the classpath</li>
+ * </ol>
+ * If a {@link WorkflowCache} is provided, parsed fragments are cached by their location and content hash and are thus
+ * parsed only once per Maven session, even if they are included by the workflows of several goals. A cached fragment
+ * is only used if all fragments it includes still resolve to the same location and content.
+ *
+ * @since 4.0.3
+ */
+public class DefaultWorkflowFragmentResolver implements WorkflowFragmentResolver {
+  private final Optional<File> baseDirectory;
+  private final WorkflowCache cache;
+  private final Deque<String> includeStack;
+  private final Deque<Map<String, String>> includeCollectors;
+  private final Map<String, String> includedFragments;
+
+  /**
+   * @param baseDirectory the directory relative to which fragment names are resolved first.
+   * @param cache the cache for parsed fragments, may be {@code null}.
+   */
+  public DefaultWorkflowFragmentResolver(Optional<File> baseDirectory, WorkflowCache cache) {
+    this.baseDirectory = baseDirectory;
+    this.cache = cache;
+    this.includeStack = Lists.newLinkedList();
+    this.includeCollectors = Lists.newLinkedList();
+    this.includedFragments = Maps.newLinkedHashMap();
+  }
+
+  @Override
+  public List<WorkflowStep> resolve(String fragmentName) throws IOException {
+    Fragment fragment = locate(fragmentName);
+    String location = fragment.location;
+    byte[] content = fragment.content;
+    HashCode contentHash = Hashing.sha256().hashBytes(content);
+    addIncludes(ImmutableMap.of(fragmentName, fingerprint(location, contentHash)));
+
+    if (this.includeStack.contains(location)) {
+      throw new IllegalStateException("Cyclic include detected: "
+          + Joiner.on(" -> ").join(Lists.reverse(Lists.newArrayList(this.includeStack))) + " -> " + location);
+    }
+
+    if (this.cache != null) {
+      WorkflowCache.Entry<List<WorkflowStep>> entry = this.cache.getFragment(location, contentHash);
+      if (entry != null && isUpToDate(entry.getIncludedFragments())) {
+        addIncludes(entry.getIncludedFragments());
+        return entry.getValue();
+      }
+    }
+
+    List<WorkflowStep> steps;
+    Map<String, String> nestedFragments = Maps.newLinkedHashMap();
+    this.includeStack.push(location);
+    this.includeCollectors.push(nestedFragments);
+    try (Reader reader = new InputStreamReader(new ByteArrayInputStream(content))) {
+      steps = ImmutableList.copyOf(WorkflowParser.parseFragment(reader, fragmentName, this));
+    } finally {
+      this.includeCollectors.pop();
+      this.includeStack.pop();
+    }
+
+    if (this.cache != null) {
+      this.cache.putFragment(location, contentHash, steps, nestedFragments);
+    }
+    return steps;
+  }
+
+  /**
+   * Reads the content of a fragment without parsing it.
+   *
+   * @param fragmentName the name of the fragment.
+   * @return the content of the fragment.
+   * @throws FileNotFoundException if the fragment cannot be found.
+   * @throws IOException if the fragment cannot be read.
+   */
+  public byte[] read(String fragmentName) throws IOException {
+    return locate(fragmentName).content;
+  }
+
+  /**
+   * @return the names of all fragments that have been resolved by this resolver, including nested fragments, in the
+   *         order of their first resolution.
+   */
+  public List<String> getResolvedFragments() {
+    return ImmutableList.copyOf(this.includedFragments.keySet());
+  }
+
+  /**
+   * @return the fingerprints of all fragments that have been resolved by this resolver, including nested fragments, by
+   *         fragment name. A fingerprint consists of the location and the content hash of the fragment.
+   */
+  public Map<String, String> getIncludedFragments() {
+    return ImmutableMap.copyOf(this.includedFragments);
+  }
+
+  /**
+   * Checks whether fragments that have been included by a cached workflow or fragment are still resolved by this
+   * resolver to the same location and content.
+   *
+   * @param includedFragments the fingerprints of the included fragments by fragment name.
+   * @return {@code true} if all fragments resolve to the recorded fingerprints.
+   * @throws IOException if a fragment cannot be read.
+   */
+  public boolean isUpToDate(Map<String, String> includedFragments) throws IOException {
+    for (Entry<String, String> include : includedFragments.entrySet()) {
+      Fragment fragment;
+      try {
+        fragment = locate(include.getKey());
+      } catch (FileNotFoundException e) {
+        return false;
+      }
+      if (!include.getValue()
+          .equals(fingerprint(fragment.location, Hashing.sha256().hashBytes(fragment.content)))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void addIncludes(Map<String, String> fragments) {
+    this.includedFragments.putAll(fragments);
+    for (Map<String, String> collector : this.includeCollectors) {
+      collector.putAll(fragments);
+    }
+  }
+
+  private static String fingerprint(String location, HashCode contentHash) {
+    return location + '@' + contentHash;
+  }
+
+  private Fragment locate(String fragmentName) throws IOException {
+    File file = findFile(fragmentName);
+    if (file != null) {
+      return new Fragment(file.getCanonicalPath(), Files.readAllBytes(file.toPath()));
+    }
+
+    String location = WorkflowUtil.DEFAULT_WORKFLOW_DIR + "/" + fragmentName;
+    InputStream is = Thread.currentThread().getContextClassLoader().getResourceAsStream(location);
+    if (is == null) {
+      throw new FileNotFoundException("The fragment could neither be found in the file system nor on the classpath.");
+    }
+    try (InputStream in = is) {
+      return new Fragment("classpath:" + location, ByteStreams.toByteArray(in));
+    }
+  }
+
+  private File findFile(String fragmentName) {
+    if (this.baseDirectory.isPresent()) {
+      File file = new File(this.baseDirectory.get(), fragmentName);
+      if (file.isFile()) {
+        return file;
+      }
+    }
+    File file = new File(fragmentName);
+    if (file.isAbsolute() && file.isFile()) {
+      return file;
+    }
+    return null;
+  }
+
+  private static class Fragment {
+    private final String location;
+    private final byte[] content;
+
+    private Fragment(String location, byte[] content) {
+      this.location = location;
+      this.content = content;
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package com.itemis.maven.plugins.cdi.internal.util.workflow;
+
+import com.google.common.base.Preconditions;
+import com.itemis.maven.plugins.cdi.Channels;
+import com.itemis.maven.plugins.cdi.ExecutionContext;
+import com.itemis.maven.plugins.cdi.Subtasks;
+import com.itemis.maven.plugins.cdi.WorkflowData;
+
+/**
+ * Grants the workflow executor access to the package-private state of {@link ExecutionContext execution contexts}
+ * that must not be modified by processing steps. The single implementation is registered by
+ * {@link ExecutionContext} when the class is initialized.
+ *
+ * @since 4.0.3
+ */
+public abstract class ExecutionContextAccess {
+  private static volatile ExecutionContextAccess instance;
+
+  /**
+   * Registers the implementation. This method is called by {@link ExecutionContext} and can only be called once.
+   *
+   * @param access the implementation.
+   */
+  public static void register(ExecutionContextAccess access) {
+    Preconditions.checkState(instance == null, "The execution context access has already been registered.");
+    instance = access;
+  }
+
+  static ExecutionContextAccess get() {
+    ExecutionContextAccess access = instance;
+    if (access == null) {
+      try {
+        // the registration happens during the initialization of the class
+        Class.forName(ExecutionContext.class.getName(), true, ExecutionContext.class.getClassLoader());
+      } catch (ClassNotFoundException e) {
+        throw new IllegalStateException(e);
+      }
+      access = instance;
+    }
+    return access;
+  }
+
+  /**
+   * Binds the subtasks of the current step execution.
+   *
+   * @param context the execution context of the step.
+   * @param subtasks the subtasks of the current step execution or {@code null} to unbind them.
+   */
+  public abstract void setSubtasks(ExecutionContext context, Subtasks subtasks);
+
+  /**
+   * Binds the channels of the current workflow execution.
+   *
+   * @param context the execution context of the step.
+   * @param channels the channels of the current workflow execution or {@code null} to unbind them.
+   */
+  public abstract void setChannels(ExecutionContext context, Channels channels);
+
+  /**
+   * Binds the shared data of the current workflow execution.
+   *
+   * @param context the execution context of the step.
+   * @param workflowData the shared data of the current workflow execution or {@code null} to unbind it.
+   */
+  public abstract void setWorkflowData(ExecutionContext context, WorkflowData workflowData);
+}
@@ -1,25 +1,29 @@
 package com.itemis.maven.plugins.cdi.internal.util.workflow;
 
-import java.util.Collections;
 import java.util.Set;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.MoreObjects.ToStringHelper;
 import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Sets.SetView;
 
 /**
- * A representation of a parallel processing step of the workflow.
+ * A representation of a parallel processing step of the workflow. A parallel step that has been declared as
+ * <code>pipeline{}</code> block executes each of its steps on a dedicated thread so that the steps can stream data
+ * through {@link com.itemis.maven.plugins.cdi.Channel channels} while all of them are running.
  *
  * @author <a href="mailto:stanley.hillner@itemis.de">Stanley Hillner</a>
  * @since 2.1.0
  */
 public class ParallelWorkflowStep implements WorkflowStep {
-  private Set<SimpleWorkflowStep> steps;
+  private final ImmutableSet<SimpleWorkflowStep> steps;
+  private final boolean pipeline;
 
-  private ParallelWorkflowStep() {
-    this.steps = Sets.newHashSet();
+  private ParallelWorkflowStep(ImmutableSet<SimpleWorkflowStep> steps, boolean pipeline) {
+    this.steps = steps;
+    this.pipeline = pipeline;
   }
 
   @Override
@@ -27,8 +31,16 @@ public class ParallelWorkflowStep implements WorkflowStep {
     return true;
   }
 
+  /**
+   * @return {@code true} if all steps must run concurrently since they are connected through channels.
+   * @since 4.0.3
+   */
+  public boolean isPipeline() {
+    return this.pipeline;
+  }
+
   public Set<SimpleWorkflowStep> getSteps() {
-    return Collections.unmodifiableSet(this.steps);
+    return this.steps;
   }
 
   public static Builder builder() {
@@ -39,6 +51,9 @@ public class ParallelWorkflowStep implements WorkflowStep {
   public String toString() {
     ToStringHelper toStringHelper = MoreObjects.toStringHelper(this);
     toStringHelper.add("#steps", this.steps.size());
+    if (this.pipeline) {
+      toStringHelper.add("pipeline", true);
+    }
     int i = 1;
     for (SimpleWorkflowStep step : this.steps) {
       toStringHelper.add("step " + i++,
@@ -49,13 +64,16 @@ public class ParallelWorkflowStep implements WorkflowStep {
 
   @Override
   public int hashCode() {
-    return Objects.hashCode(this.steps.toArray());
+    return Objects.hashCode(this.pipeline, Objects.hashCode(this.steps.toArray()));
   }
 
   @Override
   public boolean equals(Object other) {
     if (other instanceof ParallelWorkflowStep) {
       ParallelWorkflowStep otherStep = (ParallelWorkflowStep) other;
+      if (this.pipeline != otherStep.pipeline) {
+        return false;
+      }
       SetView<SimpleWorkflowStep> intersection = Sets.intersection(this.steps, otherStep.steps);
       return intersection.size() == this.steps.size();
     }
@@ -63,21 +81,31 @@ public class ParallelWorkflowStep implements WorkflowStep {
   }
 
   public static class Builder {
-    private ParallelWorkflowStep parallelStep;
+    private ImmutableSet.Builder<SimpleWorkflowStep> steps;
+    private boolean pipeline;
 
     private Builder() {
-      this.parallelStep = new ParallelWorkflowStep();
+      this.steps = ImmutableSet.builder();
     }
 
     public Builder addSteps(SimpleWorkflowStep... steps) {
-      for (SimpleWorkflowStep step : steps) {
-        this.parallelStep.steps.add(step);
-      }
+      this.steps.add(steps);
+      return this;
+    }
+
+    /**
+     * Declares the parallel step as pipeline whose steps must all run concurrently.
+     *
+     * @return this builder.
+     * @since 4.0.3
+     */
+    public Builder pipeline() {
+      this.pipeline = true;
       return this;
     }
 
     public ParallelWorkflowStep build() {
-      return this.parallelStep;
+      return new ParallelWorkflowStep(this.steps.build(), this.pipeline);
     }
   }
 
@@ -1,72 +1,102 @@
 package com.itemis.maven.plugins.cdi.internal.util.workflow;
 
-import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
-import com.google.common.base.Objects;
-import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
-import com.itemis.maven.plugins.cdi.ExecutionContext;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 /**
- * A workflow representing the processing step order for a specific goal.
+ * A workflow representing the processing step order for a specific goal.<br>
+ * <br>
+ * The workflow is immutable once it has been {@link Builder#build() built} and may thus be shared between executions.
+ * The ids of all steps are indexed on creation so that {@link #containsStep(String)} does not need to traverse the
+ * workflow. The execution contexts of the steps are not part of the workflow but are created per execution using
+ * {@link WorkflowUtil#createExecutionContexts(ProcessingWorkflow)}.
  *
  * @author <a href="mailto:stanley.hillner@itemis.de">Stanley Hillner</a>
  * @since 2.0.0
  */
 public class ProcessingWorkflow {
-  private String goal;
-  private List<WorkflowStep> steps;
-  private List<SimpleWorkflowStep> finallySteps;
-  private Map<String, ExecutionContext> executionContexts;
+  private final String goal;
+  private final ImmutableList<WorkflowStep> steps;
+  private final ImmutableList<SimpleWorkflowStep> finallySteps;
+  private final ImmutableSet<String> stepIds;
 
-  public ProcessingWorkflow(String goal) {
+  private ProcessingWorkflow(String goal, ImmutableList<WorkflowStep> steps,
+      ImmutableList<SimpleWorkflowStep> finallySteps) {
     this.goal = goal;
-    this.steps = Lists.newArrayList();
-    this.finallySteps = Lists.newArrayList();
-    this.executionContexts = Maps.newHashMap();
-  }
-
-  public String getGoal() {
-    return this.goal;
-  }
+    this.steps = steps;
+    this.finallySteps = finallySteps;
 
-  public void addProcessingStep(WorkflowStep step) {
-    this.steps.add(step);
+    ImmutableSet.Builder<String> stepIds = ImmutableSet.builder();
+    for (WorkflowStep step : steps) {
+      if (step.isParallel()) {
+        for (SimpleWorkflowStep simpleStep : ((ParallelWorkflowStep) step).getSteps()) {
+          stepIds.add(simpleStep.getStepId());
+        }
+      } else {
+        stepIds.add(((SimpleWorkflowStep) step).getStepId());
+      }
+    }
+    for (SimpleWorkflowStep step : finallySteps) {
+      stepIds.add(step.getStepId());
+    }
+    this.stepIds = stepIds.build();
   }
 
-  public void addFinallyStep(SimpleWorkflowStep step) {
-    this.finallySteps.add(step);
+  /**
+   * @param goal the goal the workflow is designed for.
+   * @return a builder for a new workflow.
+   * @since 4.0.3
+   */
+  public static Builder builder(String goal) {
+    return new Builder(goal);
   }
 
-  public void addExecutionContext(String stepId, ExecutionContext context) {
-    this.executionContexts.put(stepId, context);
+  public String getGoal() {
+    return this.goal;
   }
 
   public List<WorkflowStep> getProcessingSteps() {
-    return Collections.unmodifiableList(this.steps);
+    return this.steps;
   }
 
   public List<SimpleWorkflowStep> getFinallySteps() {
-    return Collections.unmodifiableList(this.finallySteps);
+    return this.finallySteps;
   }
 
-  public ExecutionContext getExecutionContext(String stepId) {
-    return this.executionContexts.get(stepId);
+  public boolean containsStep(String id) {
+    return this.stepIds.contains(id);
   }
 
-  public boolean containsStep(String id) {
-    for (WorkflowStep step : this.steps) {
-      if (step.containsId(id)) {
-        return true;
-      }
+  /**
+   * A builder for {@link ProcessingWorkflow workflows}.
+   *
+   * @since 4.0.3
+   */
+  public static class Builder {
+    private final String goal;
+    private final ImmutableList.Builder<WorkflowStep> steps;
+    private final ImmutableList.Builder<SimpleWorkflowStep> finallySteps;
+
+    private Builder(String goal) {
+      this.goal = goal;
+      this.steps = ImmutableList.builder();
+      this.finallySteps = ImmutableList.builder();
     }
-    for (SimpleWorkflowStep step : this.finallySteps) {
-      if (Objects.equal(id, step.getStepId())) {
-        return true;
-      }
+
+    public Builder addProcessingStep(WorkflowStep step) {
+      this.steps.add(step);
+      return this;
+    }
+
+    public Builder addFinallyStep(SimpleWorkflowStep step) {
+      this.finallySteps.add(step);
+      return this;
+    }
+
+    public ProcessingWorkflow build() {
+      return new ProcessingWorkflow(this.goal, this.steps.build(), this.finallySteps.build());
     }
-    return false;
   }
 }
@@ -6,22 +6,36 @@ import com.google.common.base.Objects;
 import com.google.common.base.Optional;
 
 /**
- * A representation of a sequential processing step of the workflow.
+ * A representation of a sequential processing step of the workflow. Instances are immutable.
  *
  * @author <a href="mailto:stanley.hillner@itemis.de">Stanley Hillner</a>
  * @since 2.1.0
  */
 public class SimpleWorkflowStep implements WorkflowStep {
-  private String id;
-  private Optional<String> qualifier;
-  private Optional<String> defaultExecutionData;
-  private Optional<String> defaultRollbackData;
+  private final String id;
+  private final Optional<String> qualifier;
+  private final String compositeStepId;
+  private final Optional<String> defaultExecutionData;
+  private final Optional<String> defaultRollbackData;
 
   public SimpleWorkflowStep(String id, Optional<String> qualifier) {
+    this(id, qualifier, Optional.<String> absent(), Optional.<String> absent());
+  }
+
+  /**
+   * @param id the id of the step.
+   * @param qualifier the optional qualifier of the step.
+   * @param defaultExecutionData the execution data declared in the workflow descriptor.
+   * @param defaultRollbackData the rollback data declared in the workflow descriptor.
+   * @since 4.0.3
+   */
+  public SimpleWorkflowStep(String id, Optional<String> qualifier, Optional<String> defaultExecutionData,
+      Optional<String> defaultRollbackData) {
     this.id = id;
     this.qualifier = qualifier;
-    this.defaultExecutionData = Optional.absent();
-    this.defaultRollbackData = Optional.absent();
+    this.compositeStepId = id + (qualifier.isPresent() ? "[" + qualifier.get() + "]" : "");
+    this.defaultExecutionData = defaultExecutionData;
+    this.defaultRollbackData = defaultRollbackData;
   }
 
   @Override
@@ -38,21 +52,13 @@ public class SimpleWorkflowStep implements WorkflowStep {
   }
 
   public String getCompositeStepId() {
-    return this.id + (this.qualifier.isPresent() ? "[" + this.qualifier.get() + "]" : "");
-  }
-
-  public void setDefaultExecutionData(String data) {
-    this.defaultExecutionData = Optional.fromNullable(data);
+    return this.compositeStepId;
   }
 
   public Optional<String> getDefaultExecutionData() {
     return this.defaultExecutionData;
   }
 
-  public void setDefaultRollbackData(String data) {
-    this.defaultRollbackData = Optional.fromNullable(data);
-  }
-
   public Optional<String> getDefaultRollbackData() {
     return this.defaultRollbackData;
   }
@@ -0,0 +1,121 @@
+package com.itemis.maven.plugins.cdi.internal.util.workflow;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.logging.Log;
+
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.itemis.maven.plugins.cdi.WorkflowEvent;
+import com.itemis.maven.plugins.cdi.WorkflowListener;
+
+/**
+ * A watchdog that reports workflows which do not make any progress. If no step starts or finishes within the stall
+ * timeout, the composite ids of all running steps, their elapsed times and the stack traces of the threads executing
+ * them are logged as a warning. The workflow is not interrupted and the report is repeated for each further timeout
+ * without progress.
+ *
+ * @since 4.0.3
+ */
+class StallDetector implements WorkflowListener {
+  private final long timeoutNanos;
+  private final Log log;
+  private final Map<String, RunningStep> running;
+  private final Thread workflowThread;
+  private volatile long lastProgress;
+  private ScheduledExecutorService watchdog;
+
+  StallDetector(long timeout, TimeUnit unit, Log log) {
+    this.timeoutNanos = unit.toNanos(timeout);
+    this.log = log;
+    this.running = Maps.newConcurrentMap();
+    this.workflowThread = Thread.currentThread();
+  }
+
+  @Override
+  public synchronized void workflowStarted(WorkflowEvent event) {
+    this.lastProgress = event.getNanoTime();
+    this.watchdog = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("workflow-stall-detector").setDaemon(true).build());
+    // checking four times per timeout reports a stall at most 25% late
+    long period = Math.max(this.timeoutNanos / 4, TimeUnit.MILLISECONDS.toNanos(1));
+    this.watchdog.scheduleAtFixedRate(new Runnable() {
+      @Override
+      public void run() {
+        check();
+      }
+    }, period, period, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public synchronized void workflowFinished(WorkflowEvent event) {
+    if (this.watchdog != null) {
+      this.watchdog.shutdownNow();
+      this.watchdog = null;
+    }
+  }
+
+  @Override
+  public void stepStarted(WorkflowEvent event) {
+    this.running.put(event.getCompositeStepId().get(), new RunningStep(Thread.currentThread(), event.getNanoTime()));
+    this.lastProgress = event.getNanoTime();
+  }
+
+  @Override
+  public void stepFinished(WorkflowEvent event) {
+    this.running.remove(event.getCompositeStepId().get());
+    this.lastProgress = event.getNanoTime();
+  }
+
+  @Override
+  public void stepFailed(WorkflowEvent event) {
+    stepFinished(event);
+  }
+
+  private void check() {
+    long now = System.nanoTime();
+    long idle = now - this.lastProgress;
+    if (idle < this.timeoutNanos) {
+      return;
+    }
+    // the next report is due after another timeout without progress
+    this.lastProgress = now;
+
+    StringBuilder sb = new StringBuilder("No workflow step has started or finished for ")
+        .append(TimeUnit.NANOSECONDS.toSeconds(idle)).append("s.");
+    if (this.running.isEmpty()) {
+      sb.append(" No step is running, the workflow thread is at:");
+      appendStackTrace(sb, this.workflowThread);
+    } else {
+      sb.append(" Running steps:");
+      for (Entry<String, RunningStep> entry : this.running.entrySet()) {
+        RunningStep step = entry.getValue();
+        sb.append("\n\n'").append(entry.getKey()).append("' running for ")
+            .append(TimeUnit.NANOSECONDS.toSeconds(now - step.startNanos)).append("s on thread '")
+            .append(step.thread.getName()).append("' (").append(step.thread.getState()).append("):");
+        appendStackTrace(sb, step.thread);
+      }
+    }
+    this.log.warn(sb.toString());
+  }
+
+  private static void appendStackTrace(StringBuilder sb, Thread thread) {
+    for (StackTraceElement element : thread.getStackTrace()) {
+      sb.append("\n\tat ").append(element);
+    }
+  }
+
+  private static class RunningStep {
+    private final Thread thread;
+    private final long startNanos;
+
+    private RunningStep(Thread thread, long startNanos) {
+      this.thread = thread;
+      this.startNanos = startNanos;
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package com.itemis.maven.plugins.cdi.internal.util.workflow;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.function.BiFunction;
+
+import org.apache.maven.plugin.logging.Log;
+
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Longs;
+
+/**
+ * A small persisted history of the execution durations of workflow steps. The history is used to submit the steps of
+ * parallel blocks in descending order of their expected duration (longest processing time first) which shortens the
+ * overall execution time of a block that runs on a bounded thread pool.<br>
+ * <br>
+ * The expected duration of a step is the exponentially weighted moving average of its recorded durations. Steps
+ * without any recorded duration are scheduled first.
+ *
+ * @since 4.0.3
+ */
+public class StepDurationHistory {
+  private static final String FILE_EXTENSION = ".durations";
+
+  private File historyFile;
+  private Map<String, Long> durations;
+  private volatile boolean modified;
+
+  private StepDurationHistory(File historyFile, Map<String, Long> durations) {
+    this.historyFile = historyFile;
+    this.durations = durations;
+  }
+
+  /**
+   * Loads the step duration history of a goal. If the history cannot be read, an empty history is used.
+   *
+   * @param stateDirectory the directory where the history is stored.
+   * @param goalName the name of the goal whose step durations are recorded.
+   * @param log the log for processing output.
+   * @return the loaded history.
+   */
+  public static StepDurationHistory load(File stateDirectory, String goalName, Log log) {
+    File historyFile = new File(stateDirectory, goalName + FILE_EXTENSION);
+    Map<String, Long> durations = Maps.newConcurrentMap();
+    if (historyFile.isFile()) {
+      Properties properties = new Properties();
+      try (InputStream is = Files.newInputStream(historyFile.toPath())) {
+        properties.load(is);
+        for (String stepId : properties.stringPropertyNames()) {
+          Long duration = Longs.tryParse(properties.getProperty(stepId));
+          if (duration != null) {
+            durations.put(stepId, duration);
+          }
+        }
+      } catch (IOException e) {
+        log.warn("Unable to read the step duration history " + historyFile.getAbsolutePath()
+            + ". Parallel steps will be scheduled in workflow order.");
+      }
+    }
+    return new StepDurationHistory(historyFile, durations);
+  }
+
+  /**
+   * @param compositeStepId the composite id of the step.
+   * @return the expected duration of the step in milliseconds or {@code -1} if there is no recorded duration.
+   */
+  public long getExpectedDuration(String compositeStepId) {
+    Long duration = this.durations.get(compositeStepId);
+    return duration != null ? duration : -1;
+  }
+
+  /**
+   * Records the duration of a step execution. This method can safely be called from multiple threads.
+   *
+   * @param compositeStepId the composite id of the executed step.
+   * @param durationMillis the execution duration in milliseconds.
+   */
+  public void record(String compositeStepId, long durationMillis) {
+    this.durations.merge(compositeStepId, durationMillis, new BiFunction<Long, Long, Long>() {
+      @Override
+      public Long apply(Long previous, Long current) {
+        return (previous + current) / 2;
+      }
+    });
+    this.modified = true;
+  }
+
+  /**
+   * Sorts the steps in descending order of their expected durations. Steps without recorded durations are sorted to the
+   * front while the order of steps with equal durations is retained.
+   *
+   * @param steps the steps to sort.
+   */
+  public void sortByExpectedDuration(List<SimpleWorkflowStep> steps) {
+    Collections.sort(steps, new Comparator<SimpleWorkflowStep>() {
+      @Override
+      public int compare(SimpleWorkflowStep s1, SimpleWorkflowStep s2) {
+        long d1 = getExpectedDuration(s1.getCompositeStepId());
+        long d2 = getExpectedDuration(s2.getCompositeStepId());
+        return Longs.compare(d2 < 0 ? Long.MAX_VALUE : d2, d1 < 0 ? Long.MAX_VALUE : d1);
+      }
+    });
+  }
+
+  /**
+   * Persists the history if any durations have been recorded since loading it.
+   *
+   * @throws IOException if the history could not be written.
+   */
+  public void save() throws IOException {
+    if (!this.modified) {
+      return;
+    }
+    Properties properties = new Properties();
+    for (Entry<String, Long> entry : this.durations.entrySet()) {
+      properties.setProperty(entry.getKey(), entry.getValue().toString());
+    }
+    File dir = this.historyFile.getParentFile();
+    if (dir != null) {
+      Files.createDirectories(dir.toPath());
+    }
+    try (OutputStream os = Files.newOutputStream(this.historyFile.toPath())) {
+      properties.store(os, "Expected durations of workflow steps in milliseconds");
+    }
+    this.modified = false;
+  }
+
+  public File getHistoryFile() {
+    return this.historyFile;
+  }
+}
@@ -0,0 +1,151 @@
+package com.itemis.maven.plugins.cdi.internal.util.workflow;
+
+import java.lang.management.ThreadMXBean;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import com.itemis.maven.plugins.cdi.WorkflowEvent;
+
+import de.vandermeer.asciitable.AT_Renderer;
+import de.vandermeer.asciitable.AsciiTable;
+import de.vandermeer.asciitable.CWC_LongestLine;
+
+/**
+ * Accounts the wall time, the CPU time and the allocated bytes of each step execution using the {@link ThreadMXBean}
+ * of the thread that executes the step.<br>
+ * <br>
+ * The CPU time is only accounted if the JVM supports thread CPU time measurement and the allocated bytes only if the
+ * JVM provides the <code>com.sun.management.ThreadMXBean</code> extension. Work that a step forks off to
+ * {@link com.itemis.maven.plugins.cdi.Subtasks subtasks} is not accounted to the step.
+ *
+ * @since 4.0.3
+ */
+public class StepStatistics extends AbstractStepMonitor<StepStatistics.Statistics> {
+  private static final long UNSUPPORTED = -1;
+
+  private final com.sun.management.ThreadMXBean allocationMXBean;
+  private boolean cpuTimeWasEnabled;
+  private boolean allocatedMemoryWasEnabled;
+
+  public StepStatistics() {
+    com.sun.management.ThreadMXBean allocationMXBean = null;
+    if (this.threadMXBean instanceof com.sun.management.ThreadMXBean
+        && ((com.sun.management.ThreadMXBean) this.threadMXBean).isThreadAllocatedMemorySupported()) {
+      allocationMXBean = (com.sun.management.ThreadMXBean) this.threadMXBean;
+    }
+    this.allocationMXBean = allocationMXBean;
+  }
+
+  @Override
+  public synchronized void workflowStarted(WorkflowEvent event) {
+    if (this.threadMXBean.isCurrentThreadCpuTimeSupported()) {
+      this.cpuTimeWasEnabled = this.threadMXBean.isThreadCpuTimeEnabled();
+      this.threadMXBean.setThreadCpuTimeEnabled(true);
+    }
+    if (this.allocationMXBean != null) {
+      this.allocatedMemoryWasEnabled = this.allocationMXBean.isThreadAllocatedMemoryEnabled();
+      this.allocationMXBean.setThreadAllocatedMemoryEnabled(true);
+    }
+  }
+
+  @Override
+  public synchronized void workflowFinished(WorkflowEvent event) {
+    if (this.threadMXBean.isCurrentThreadCpuTimeSupported() && !this.cpuTimeWasEnabled) {
+      this.threadMXBean.setThreadCpuTimeEnabled(false);
+    }
+    if (this.allocationMXBean != null && !this.allocatedMemoryWasEnabled) {
+      this.allocationMXBean.setThreadAllocatedMemoryEnabled(false);
+    }
+  }
+
+  @Override
+  protected Statistics startSample(WorkflowEvent event) {
+    Statistics sample = new Statistics(event);
+    sample.wallTime = event.getNanoTime();
+    sample.cpuTime = getCpuTime();
+    sample.allocatedBytes = getAllocatedBytes();
+    return sample;
+  }
+
+  @Override
+  protected boolean completeSample(Statistics sample, WorkflowEvent event) {
+    sample.wallTime = event.getNanoTime() - sample.wallTime;
+    sample.cpuTime = delta(sample.cpuTime, getCpuTime());
+    sample.allocatedBytes = delta(sample.allocatedBytes, getAllocatedBytes());
+    return true;
+  }
+
+  private long getCpuTime() {
+    return this.threadMXBean.isThreadCpuTimeEnabled() ? this.threadMXBean.getCurrentThreadCpuTime() : UNSUPPORTED;
+  }
+
+  private long getAllocatedBytes() {
+    if (this.allocationMXBean == null || !this.allocationMXBean.isThreadAllocatedMemoryEnabled()) {
+      return UNSUPPORTED;
+    }
+    return this.allocationMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private static long delta(long start, long end) {
+    return start < 0 || end < 0 ? UNSUPPORTED : end - start;
+  }
+
+  /**
+   * Renders the accounted step executions as a table, sorted by their wall time, longest first. The ratio of CPU time
+   * to wall time indicates whether a step is CPU-bound (close to 100%) or waits for I/O or locks.
+   *
+   * @return the rendered summary table.
+   */
+  public String render() {
+    AsciiTable table = createTable("STEP", "THREAD", "WALL", "CPU", "CPU/WALL", "ALLOCATED");
+    for (Statistics sample : getCompletedSamples(new Comparator<Statistics>() {
+      @Override
+      public int compare(Statistics s1, Statistics s2) {
+        return Long.compare(s2.wallTime, s1.wallTime);
+      }
+    })) {
+      addSampleRow(table, sample, formatTime(sample.wallTime), formatTime(sample.cpuTime),
+          formatRatio(sample.cpuTime, sample.wallTime), formatBytes(sample.allocatedBytes));
+    }
+
+    return table.setRenderer(AT_Renderer.create().setCWC(new CWC_LongestLine().add(10, 50).add(6, 30).add(8, 12)
+        .add(8, 12).add(8, 8).add(9, 12))).render();
+  }
+
+  private static String formatTime(long nanos) {
+    if (nanos < 0) {
+      return "n/a";
+    }
+    return String.format(Locale.ROOT, "%.1f ms", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+  }
+
+  private static String formatRatio(long cpuTime, long wallTime) {
+    if (cpuTime < 0 || wallTime <= 0) {
+      return "n/a";
+    }
+    return String.format(Locale.ROOT, "%d%%", Math.round(100d * cpuTime / wallTime));
+  }
+
+  private static String formatBytes(long bytes) {
+    if (bytes < 0) {
+      return "n/a";
+    }
+    if (bytes < 1024) {
+      return bytes + " B";
+    } else if (bytes < 1024 * 1024) {
+      return String.format(Locale.ROOT, "%.1f KiB", bytes / 1024d);
+    }
+    return String.format(Locale.ROOT, "%.1f MiB", bytes / (1024d * 1024d));
+  }
+
+  static class Statistics extends AbstractStepMonitor.Sample {
+    private long wallTime;
+    private long cpuTime;
+    private long allocatedBytes;
+
+    private Statistics(WorkflowEvent event) {
+      super(event);
+    }
+  }
+}
@@ -0,0 +1,133 @@
+package com.itemis.maven.plugins.cdi.internal.util.workflow;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+
+/**
+ * A cache of parsed workflows that is shared by all Mojo executions of a Maven session. Since workflows are immutable
+ * they can safely be shared between the executions for the modules of a reactor, even if the modules are built in
+ * parallel. Only the {@link com.itemis.maven.plugins.cdi.ExecutionContext execution contexts} are created per
+ * execution.<br>
+ * <br>
+ * Workflows are cached by the name of the goal and the hash of the workflow descriptor's content. Changes of a
+ * descriptor thus result in a new cache entry. The steps of included workflow fragments are cached the same way by the
+ * location and the content hash of the fragment so that fragments shared by several goals are only parsed once. Each
+ * entry additionally records the fingerprints of all fragments it includes, directly or nested, which must be checked
+ * by the caller before an entry is used.
+ *
+ * @since 4.0.3
+ */
+public class WorkflowCache {
+  // the class itself is used as key since plugins loaded through different class realms need separate caches
+  private static final Object SESSION_DATA_KEY = WorkflowCache.class;
+
+  private final ConcurrentMap<String, Entry<ProcessingWorkflow>> workflows;
+  private final ConcurrentMap<String, Entry<List<WorkflowStep>>> fragments;
+
+  private WorkflowCache() {
+    this.workflows = Maps.newConcurrentMap();
+    this.fragments = Maps.newConcurrentMap();
+  }
+
+  /**
+   * @param session the repository system session of the current Maven session. May be {@code null} in which case a
+   *          new cache is returned that is not shared.
+   * @return the workflow cache of the session.
+   */
+  public static WorkflowCache get(RepositorySystemSession session) {
+    if (session == null) {
+      return new WorkflowCache();
+    }
+
+    SessionData data = session.getData();
+    while (true) {
+      WorkflowCache cache = (WorkflowCache) data.get(SESSION_DATA_KEY);
+      if (cache != null) {
+        return cache;
+      }
+      WorkflowCache newCache = new WorkflowCache();
+      if (data.set(SESSION_DATA_KEY, null, newCache)) {
+        return newCache;
+      }
+    }
+  }
+
+  /**
+   * @param goalName the name of the goal.
+   * @param contentHash the hash of the workflow descriptor's content.
+   * @return the cached workflow or {@code null} if there is no such workflow.
+   */
+  public Entry<ProcessingWorkflow> get(String goalName, HashCode contentHash) {
+    return this.workflows.get(createKey(goalName, contentHash));
+  }
+
+  /**
+   * @param goalName the name of the goal.
+   * @param contentHash the hash of the workflow descriptor's content.
+   * @param workflow the parsed workflow.
+   * @param includedFragments the fingerprints of all fragments included by the workflow, see
+   *          {@link DefaultWorkflowFragmentResolver#getIncludedFragments()}.
+   */
+  public void put(String goalName, HashCode contentHash, ProcessingWorkflow workflow,
+      Map<String, String> includedFragments) {
+    this.workflows.put(createKey(goalName, contentHash), new Entry<ProcessingWorkflow>(workflow, includedFragments));
+  }
+
+  /**
+   * @param location the location the fragment was loaded from.
+   * @param contentHash the hash of the fragment's content.
+   * @return the cached steps of the fragment or {@code null} if there is no such fragment.
+   */
+  public Entry<List<WorkflowStep>> getFragment(String location, HashCode contentHash) {
+    return this.fragments.get(createKey(location, contentHash));
+  }
+
+  /**
+   * @param location the location the fragment was loaded from.
+   * @param contentHash the hash of the fragment's content.
+   * @param steps the parsed steps of the fragment. The list must not be modified afterwards.
+   * @param includedFragments the fingerprints of all fragments included by the fragment.
+   */
+  public void putFragment(String location, HashCode contentHash, List<WorkflowStep> steps,
+      Map<String, String> includedFragments) {
+    this.fragments.put(createKey(location, contentHash), new Entry<List<WorkflowStep>>(steps, includedFragments));
+  }
+
+  private static String createKey(String goalName, HashCode contentHash) {
+    return goalName + ':' + contentHash;
+  }
+
+  /**
+   * A cached workflow or fragment together with the fingerprints of the fragments it includes.
+   *
+   * @param <T> the type of the cached value.
+   */
+  public static final class Entry<T> {
+    private final T value;
+    private final Map<String, String> includedFragments;
+
+    private Entry(T value, Map<String, String> includedFragments) {
+      this.value = value;
+      this.includedFragments = ImmutableMap.copyOf(includedFragments);
+    }
+
+    public T getValue() {
+      return this.value;
+    }
+
+    /**
+     * @return the fingerprints of all fragments included by the cached value, directly or nested, by fragment name.
+     */
+    public Map<String, String> getIncludedFragments() {
+      return this.includedFragments;
+    }
+  }
+}
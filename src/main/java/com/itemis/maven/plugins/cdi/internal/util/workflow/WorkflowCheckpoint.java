@@ -0,0 +1,148 @@
+package com.itemis.maven.plugins.cdi.internal.util.workflow;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
+import com.itemis.maven.plugins.cdi.ExecutionContext;
+
+/**
+ * A journal of the workflow steps that have been completed successfully. The journal is persisted after each completed
+ * step so that a failed workflow can be resumed later on without re-executing the already completed steps.<br>
+ * <br>
+ * Each journal entry consists of the composite step id and the (expanded) data of the step's execution context. A step
+ * is only considered to be completed if its current data matches the recorded data.
+ *
+ * @since 4.0.3
+ */
+public class WorkflowCheckpoint {
+  private static final String FILE_EXTENSION = ".checkpoint";
+
+  private File journalFile;
+  private boolean resume;
+  private Properties journal;
+
+  private WorkflowCheckpoint(File journalFile, boolean resume, Properties journal) {
+    this.journalFile = journalFile;
+    this.resume = resume;
+    this.journal = journal;
+  }
+
+  /**
+   * Opens the checkpoint journal of a goal.
+   *
+   * @param stateDirectory the directory where the journal is stored.
+   * @param goalName the name of the goal whose workflow is checkpointed.
+   * @param resume whether the workflow shall be resumed from the journal of a previous execution. If {@code false} any
+   *          existing journal is discarded.
+   * @param log the log for processing output.
+   * @return the opened checkpoint.
+   * @throws MojoExecutionException if an existing journal could not be read.
+   */
+  public static WorkflowCheckpoint open(File stateDirectory, String goalName, boolean resume, Log log)
+      throws MojoExecutionException {
+    File journalFile = new File(stateDirectory, goalName + FILE_EXTENSION);
+    Properties journal = new Properties();
+    if (resume) {
+      if (journalFile.isFile()) {
+        try (InputStream is = Files.newInputStream(journalFile.toPath())) {
+          journal.load(is);
+        } catch (IOException e) {
+          throw new MojoExecutionException("Unable to read the workflow checkpoint " + journalFile.getAbsolutePath(),
+              e);
+        }
+        log.info("Resuming workflow from checkpoint " + journalFile.getAbsolutePath() + " (" + journal.size()
+            + " completed steps).");
+      } else {
+        log.warn("No workflow checkpoint found at " + journalFile.getAbsolutePath()
+            + ". The workflow will be executed from the beginning.");
+      }
+    } else if (journalFile.exists() && !journalFile.delete()) {
+      throw new MojoExecutionException("Unable to discard the workflow checkpoint " + journalFile.getAbsolutePath());
+    }
+    return new WorkflowCheckpoint(journalFile, resume, journal);
+  }
+
+  public File getJournalFile() {
+    return this.journalFile;
+  }
+
+  public boolean isResume() {
+    return this.resume;
+  }
+
+  /**
+   * @param context the execution context of the step to check. The context data must already be expanded.
+   * @return {@code true} if the step has been completed with exactly the same context data.
+   */
+  public synchronized boolean isCompleted(ExecutionContext context) {
+    String recordedData = this.journal.getProperty(context.getCompositeStepId());
+    return recordedData != null && Objects.equal(recordedData, serializeData(context));
+  }
+
+  /**
+   * Records the successful completion of a step and persists the journal immediately.
+   *
+   * @param context the execution context of the completed step.
+   * @throws MojoExecutionException if the journal could not be written.
+   */
+  public synchronized void stepCompleted(ExecutionContext context) throws MojoExecutionException {
+    this.journal.setProperty(context.getCompositeStepId(), serializeData(context));
+    try {
+      File dir = this.journalFile.getParentFile();
+      if (dir != null) {
+        Files.createDirectories(dir.toPath());
+      }
+      File tmpFile = new File(dir, this.journalFile.getName() + ".tmp");
+      try (OutputStream os = Files.newOutputStream(tmpFile.toPath())) {
+        this.journal.store(os, "Completed workflow steps");
+      }
+      Files.move(tmpFile.toPath(), this.journalFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new MojoExecutionException("Unable to write the workflow checkpoint " + this.journalFile.getAbsolutePath(),
+          e);
+    }
+  }
+
+  /**
+   * Discards the journal, f.i. after the workflow has been completed.
+   *
+   * @throws MojoExecutionException if the journal file could not be deleted. A remaining journal would let a later
+   *           resumed execution skip the steps of the completed workflow.
+   */
+  public synchronized void discard() throws MojoExecutionException {
+    this.journal.clear();
+    try {
+      Files.deleteIfExists(this.journalFile.toPath());
+    } catch (IOException e) {
+      throw new MojoExecutionException(
+          "Unable to discard the workflow checkpoint " + this.journalFile.getAbsolutePath(), e);
+    }
+  }
+
+  private static String serializeData(ExecutionContext context) {
+    List<String> data = Lists.newArrayList(context.getUnmappedData());
+    for (String key : Ordering.natural().sortedCopy(context.getMappedDataKeys())) {
+      data.add(key + WorkflowUtil.CONTEXT_DATA_MAP_ASSIGNMENT + context.getMappedDate(key));
+    }
+    List<String> rollbackData = Lists.newArrayList(context.getUnmappedRollbackData());
+    for (String key : Ordering.natural().sortedCopy(context.getMappedRollbackDataKeys())) {
+      rollbackData.add(key + WorkflowUtil.CONTEXT_DATA_MAP_ASSIGNMENT + context.getMappedRollbackDate(key));
+    }
+    Joiner joiner = Joiner.on(WorkflowUtil.CONTEXT_DATA_SEPARATOR);
+    return joiner.join(data) + ";" + joiner.join(rollbackData);
+  }
+}
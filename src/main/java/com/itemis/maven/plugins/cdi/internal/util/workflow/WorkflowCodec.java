@@ -0,0 +1,223 @@
+package com.itemis.maven.plugins.cdi.internal.util.workflow;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Encodes workflows into a compact binary form and decodes them again. The binary form is produced at plugin build
+ * time by the workflow compiler and stored next to the textual workflow descriptor using the
+ * {@link #FILE_EXTENSION compiled workflow file extension}. Loading the binary form skips the parsing and validation of
+ * the descriptor at runtime.<br>
+ * <br>
+ * The header of the binary form contains a {@link #computeSourceHash(byte[], List) SHA-256 hash} of the descriptor and
+ * of all fragments that have been inlined into the workflow. If the binary form is loaded from a directory, f.i. the
+ * class output directory of an incremental build, it must only be used if the hash still matches the sources since an
+ * edited descriptor does not necessarily trigger a recompilation of the workflow. A binary form that is packaged in the
+ * same archive as its descriptor has been compiled from it and can be used without computing the hash.
+ *
+ * @since 4.0.3
+ */
+public class WorkflowCodec {
+  /**
+   * The file extension of compiled workflows.
+   */
+  public static final String FILE_EXTENSION = ".compiled";
+
+  private static final int MAGIC = 0x43444957; // CDIW
+  private static final int VERSION = 1;
+
+  private static final byte TAG_STEP = 0;
+  private static final byte TAG_PARALLEL = 1;
+  private static final byte TAG_PIPELINE = 2;
+
+  private WorkflowCodec() {
+  }
+
+  /**
+   * Computes the hash of the sources of a workflow.
+   *
+   * @param descriptor the content of the workflow descriptor.
+   * @param fragments the contents of all fragments inlined into the workflow in the order of their resolution.
+   * @return the hash of the sources.
+   */
+  public static HashCode computeSourceHash(byte[] descriptor, List<byte[]> fragments) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putInt(descriptor.length).putBytes(descriptor);
+    for (byte[] fragment : fragments) {
+      hasher.putInt(fragment.length).putBytes(fragment);
+    }
+    return hasher.hash();
+  }
+
+  /**
+   * Writes the binary form of a workflow. The stream is not closed by this method.
+   *
+   * @param workflow the workflow to encode.
+   * @param sourceHash the {@link #computeSourceHash(byte[], List) hash of the sources} of the workflow.
+   * @param fragmentNames the names of all fragments inlined into the workflow in the order of their resolution.
+   * @param os the stream to write the binary form to.
+   * @throws IOException if the binary form could not be written.
+   */
+  public static void encode(ProcessingWorkflow workflow, HashCode sourceHash, List<String> fragmentNames,
+      OutputStream os) throws IOException {
+    DataOutputStream out = new DataOutputStream(os);
+    out.writeInt(MAGIC);
+    out.writeByte(VERSION);
+    out.writeUTF(workflow.getGoal());
+    byte[] hash = sourceHash.asBytes();
+    out.writeInt(hash.length);
+    out.write(hash);
+    out.writeInt(fragmentNames.size());
+    for (String fragmentName : fragmentNames) {
+      out.writeUTF(fragmentName);
+    }
+
+    List<WorkflowStep> steps = workflow.getProcessingSteps();
+    out.writeInt(steps.size());
+    for (WorkflowStep step : steps) {
+      if (step.isParallel()) {
+        ParallelWorkflowStep parallelStep = (ParallelWorkflowStep) step;
+        out.writeByte(parallelStep.isPipeline() ? TAG_PIPELINE : TAG_PARALLEL);
+        out.writeInt(parallelStep.getSteps().size());
+        for (SimpleWorkflowStep simpleStep : parallelStep.getSteps()) {
+          encodeStep(simpleStep, out);
+        }
+      } else {
+        out.writeByte(TAG_STEP);
+        encodeStep((SimpleWorkflowStep) step, out);
+      }
+    }
+
+    List<SimpleWorkflowStep> finallySteps = workflow.getFinallySteps();
+    out.writeInt(finallySteps.size());
+    for (SimpleWorkflowStep step : finallySteps) {
+      encodeStep(step, out);
+    }
+    out.flush();
+  }
+
+  /**
+   * Reads a workflow from its binary form. The stream is not closed by this method.
+   *
+   * @param is the stream to read the binary form from.
+   * @return the decoded workflow together with the information about its sources.
+   * @throws IOException if the binary form could not be read or has been written by an incompatible version.
+   */
+  public static CompiledWorkflow decode(InputStream is) throws IOException {
+    DataInputStream in = new DataInputStream(is);
+    if (in.readInt() != MAGIC) {
+      throw new IOException("The stream does not contain a compiled workflow.");
+    }
+    int version = in.readUnsignedByte();
+    if (version != VERSION) {
+      throw new IOException("Unsupported version " + version + " of the compiled workflow.");
+    }
+
+    ProcessingWorkflow.Builder workflow = ProcessingWorkflow.builder(in.readUTF());
+    byte[] hash = new byte[in.readInt()];
+    in.readFully(hash);
+    int numberOfFragments = in.readInt();
+    List<String> fragmentNames = Lists.newArrayListWithCapacity(numberOfFragments);
+    for (int i = 0; i < numberOfFragments; i++) {
+      fragmentNames.add(in.readUTF());
+    }
+
+    int numberOfSteps = in.readInt();
+    for (int i = 0; i < numberOfSteps; i++) {
+      byte tag = in.readByte();
+      switch (tag) {
+        case TAG_STEP:
+          workflow.addProcessingStep(decodeStep(in));
+          break;
+        case TAG_PARALLEL:
+        case TAG_PIPELINE:
+          ParallelWorkflowStep.Builder parallelStep = ParallelWorkflowStep.builder();
+          if (tag == TAG_PIPELINE) {
+            parallelStep.pipeline();
+          }
+          int numberOfParallelSteps = in.readInt();
+          for (int j = 0; j < numberOfParallelSteps; j++) {
+            parallelStep.addSteps(decodeStep(in));
+          }
+          workflow.addProcessingStep(parallelStep.build());
+          break;
+        default:
+          throw new IOException("Unknown step type " + tag + " in the compiled workflow.");
+      }
+    }
+
+    int numberOfFinallySteps = in.readInt();
+    for (int i = 0; i < numberOfFinallySteps; i++) {
+      workflow.addFinallyStep(decodeStep(in));
+    }
+    return new CompiledWorkflow(workflow.build(), HashCode.fromBytes(hash), fragmentNames);
+  }
+
+  private static void encodeStep(SimpleWorkflowStep step, DataOutputStream out) throws IOException {
+    out.writeUTF(step.getStepId());
+    encodeOptional(step.getQualifier(), out);
+    encodeOptional(step.getDefaultExecutionData(), out);
+    encodeOptional(step.getDefaultRollbackData(), out);
+  }
+
+  private static SimpleWorkflowStep decodeStep(DataInputStream in) throws IOException {
+    String id = in.readUTF();
+    return new SimpleWorkflowStep(id, decodeOptional(in), decodeOptional(in), decodeOptional(in));
+  }
+
+  private static void encodeOptional(Optional<String> value, DataOutputStream out) throws IOException {
+    out.writeBoolean(value.isPresent());
+    if (value.isPresent()) {
+      out.writeUTF(value.get());
+    }
+  }
+
+  private static Optional<String> decodeOptional(DataInputStream in) throws IOException {
+    return in.readBoolean() ? Optional.of(in.readUTF()) : Optional.<String> absent();
+  }
+
+  /**
+   * A decoded workflow together with the information about the sources it has been compiled from.
+   */
+  public static final class CompiledWorkflow {
+    private final ProcessingWorkflow workflow;
+    private final HashCode sourceHash;
+    private final List<String> fragmentNames;
+
+    private CompiledWorkflow(ProcessingWorkflow workflow, HashCode sourceHash, List<String> fragmentNames) {
+      this.workflow = workflow;
+      this.sourceHash = sourceHash;
+      this.fragmentNames = ImmutableList.copyOf(fragmentNames);
+    }
+
+    public ProcessingWorkflow getWorkflow() {
+      return this.workflow;
+    }
+
+    /**
+     * @return the {@link WorkflowCodec#computeSourceHash(byte[], List) hash of the sources} the workflow has been
+     *         compiled from.
+     */
+    public HashCode getSourceHash() {
+      return this.sourceHash;
+    }
+
+    /**
+     * @return the names of all fragments inlined into the workflow in the order of their resolution.
+     */
+    public List<String> getFragmentNames() {
+      return this.fragmentNames;
+    }
+  }
+}
@@ -3,6 +3,7 @@ package com.itemis.maven.plugins.cdi.internal.util.workflow;
 public class WorkflowConstants {
   public static final String KW_COMMENT = "#";
   public static final String KW_PARALLEL = "parallel";
+  public static final String KW_PIPELINE = "pipeline";
   public static final String KW_BLOCK_OPEN = "{";
   public static final String KW_BLOCK_CLOSE = "}";
   public static final String KW_QUALIFIER_OPEN = "[";
@@ -12,4 +13,5 @@ public class WorkflowConstants {
   public static final String KW_ROLLBACK_DATA = "rollbackData";
   public static final String KW_TRY = "try";
   public static final String KW_FINALLY = "finally";
+  public static final String KW_INCLUDE = "include";
 }
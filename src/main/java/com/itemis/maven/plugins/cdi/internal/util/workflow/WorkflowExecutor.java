@@ -1,6 +1,8 @@
 package com.itemis.maven.plugins.cdi.internal.util.workflow;
 
+import java.io.IOException;
 import java.lang.reflect.Method;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedList;
@@ -12,7 +14,9 @@ import java.util.Stack;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -21,14 +25,24 @@ import org.apache.maven.plugin.PluginParameterExpressionEvaluator;
 import org.apache.maven.plugin.logging.Log;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.itemis.maven.plugins.cdi.CDIMojoProcessingStep;
+import com.itemis.maven.plugins.cdi.Channels;
 import com.itemis.maven.plugins.cdi.ExecutionContext;
+import com.itemis.maven.plugins.cdi.ExpressionEvaluationCache;
+import com.itemis.maven.plugins.cdi.Subtasks;
+import com.itemis.maven.plugins.cdi.WorkflowData;
+import com.itemis.maven.plugins.cdi.WorkflowEvent;
+import com.itemis.maven.plugins.cdi.WorkflowListener;
+import com.itemis.maven.plugins.cdi.annotations.CostClass;
 import com.itemis.maven.plugins.cdi.annotations.ProcessingStep;
 import com.itemis.maven.plugins.cdi.annotations.RollbackOnError;
 import com.itemis.maven.plugins.cdi.exception.EnforceRollbackWithoutErrorException;
+import com.itemis.maven.plugins.cdi.internal.util.FlightRecorderEvent;
 
 /**
  * An executor for a {@link ProcessingWorkflow} which takes care of executing the steps of the workflow in the correct
@@ -38,18 +52,144 @@ import com.itemis.maven.plugins.cdi.exception.EnforceRollbackWithoutErrorExcepti
  * @since 2.0.0
  */
 public class WorkflowExecutor {
+  /**
+   * The default number of threads used to execute parallel steps of the cost class {@link CostClass#IO}.
+   */
+  public static final int DEFAULT_IO_PARALLELISM = 64;
+
   private Log log;
   private ProcessingWorkflow workflow;
+  private Map<String, ExecutionContext> executionContexts;
   private Map<String, CDIMojoProcessingStep> processingSteps;
   private Stack<Pair<CDIMojoProcessingStep, ExecutionContext>> executedSteps;
-  private PluginParameterExpressionEvaluator expressionEvaluator;
+  private ExpressionEvaluationCache expressionCache;
+  private WorkflowCheckpoint checkpoint;
+  private boolean resuming;
+  private StepDurationHistory durationHistory;
+  private int maxParallelism;
+  private int minAdaptiveParallelism;
+  private boolean adaptiveParallelism;
+  private AdaptiveThreadPool adaptiveThreadPool;
+  private int ioParallelism = DEFAULT_IO_PARALLELISM;
+  private ExecutorService cpuExecutorService;
+  private ExecutorService ioExecutorService;
+  private ForkJoinPool forkJoinPool;
+  private Channels channels;
+  private WorkflowData workflowData;
+  private List<WorkflowListener> listeners = ImmutableList.of();
+  private long stallTimeoutNanos;
 
+  /**
+   * @param workflow the workflow to execute.
+   * @param processingSteps the processing step implementations mapped by their ids.
+   * @param log the log for processing output.
+   * @param expressionEvaluator the evaluator for expressions within the step data.
+   * @deprecated Use {@link #WorkflowExecutor(ProcessingWorkflow, Map, Map, Log, PluginParameterExpressionEvaluator)}
+   *             instead. This constructor creates new execution contexts using
+   *             {@link WorkflowUtil#createExecutionContexts(ProcessingWorkflow)}.
+   */
+  @Deprecated
   public WorkflowExecutor(ProcessingWorkflow workflow, Map<String, CDIMojoProcessingStep> processingSteps, Log log,
       PluginParameterExpressionEvaluator expressionEvaluator) {
+    this(workflow, WorkflowUtil.createExecutionContexts(workflow), processingSteps, log, expressionEvaluator);
+  }
+
+  /**
+   * @param workflow the workflow to execute.
+   * @param executionContexts the execution contexts of this execution mapped by the composite step ids.
+   * @param processingSteps the processing step implementations mapped by their ids.
+   * @param log the log for processing output.
+   * @param expressionEvaluator the evaluator for expressions within the step data.
+   * @since 4.0.3
+   */
+  public WorkflowExecutor(ProcessingWorkflow workflow, Map<String, ExecutionContext> executionContexts,
+      Map<String, CDIMojoProcessingStep> processingSteps, Log log,
+      PluginParameterExpressionEvaluator expressionEvaluator) {
     this.workflow = workflow;
+    this.executionContexts = executionContexts;
     this.processingSteps = processingSteps;
     this.log = log;
-    this.expressionEvaluator = expressionEvaluator;
+    this.expressionCache = new ExpressionEvaluationCache(expressionEvaluator);
+  }
+
+  /**
+   * Enables the checkpoint mode of this executor. In this mode each completed step is recorded in the checkpoint
+   * journal and steps that have been completed successfully are not rolled back in case of a later failure. This
+   * enables a later execution to resume the workflow from the point of failure.
+   *
+   * @param checkpoint the checkpoint to record completed steps in and to resume from if requested.
+   * @since 4.0.3
+   */
+  public void setCheckpoint(WorkflowCheckpoint checkpoint) {
+    this.checkpoint = checkpoint;
+  }
+
+  /**
+   * Sets the history of step durations which is used to submit the steps of parallel blocks in descending order of
+   * their expected durations. The durations of the executed parallel steps are recorded and persisted after the
+   * workflow execution.
+   *
+   * @param durationHistory the step duration history.
+   * @since 4.0.3
+   */
+  public void setDurationHistory(StepDurationHistory durationHistory) {
+    this.durationHistory = durationHistory;
+  }
+
+  /**
+   * @param maxParallelism the maximum number of threads used to execute the steps of a parallel block. A value of
+   *          {@code 0} or less uses one thread per step.
+   * @since 4.0.3
+   */
+  public void setMaxParallelism(int maxParallelism) {
+    this.maxParallelism = maxParallelism;
+  }
+
+  /**
+   * Enables the adaptive parallelism mode. In this mode all parallel blocks of the workflow are executed on a shared
+   * {@link AdaptiveThreadPool} that grows or shrinks between the given minimum and the
+   * {@link #setMaxParallelism(int) maximum parallelism} depending on the observed CPU utilization of the steps. If no
+   * maximum is set, four times the number of available cores is used.
+   *
+   * @param minParallelism the minimum number of threads used to execute parallel steps.
+   * @since 4.0.3
+   */
+  public void enableAdaptiveParallelism(int minParallelism) {
+    this.adaptiveParallelism = true;
+    this.minAdaptiveParallelism = minParallelism;
+  }
+
+  /**
+   * @param ioParallelism the number of threads shared by all parallel steps of the cost class {@link CostClass#IO}.
+   *          Parallel steps of the cost class {@link CostClass#CPU} share a pool sized to the number of available
+   *          cores.
+   * @since 4.0.3
+   */
+  public void setIoParallelism(int ioParallelism) {
+    this.ioParallelism = ioParallelism > 0 ? ioParallelism : DEFAULT_IO_PARALLELISM;
+  }
+
+  /**
+   * Registers the listeners that observe the execution of the workflow. If no listeners are registered, no events are
+   * created at all.
+   *
+   * @param listeners the listeners to notify.
+   * @since 4.0.3
+   */
+  public void setListeners(Collection<? extends WorkflowListener> listeners) {
+    this.listeners = ImmutableList.copyOf(listeners);
+  }
+
+  /**
+   * Enables the stall detection. If no step starts or finishes within the timeout, the running steps and the stack
+   * traces of their threads are logged. The workflow itself is not affected.
+   *
+   * @param timeout the stall timeout, a value of {@code 0} or less disables the stall detection.
+   * @param unit the unit of the timeout.
+   * @since 4.0.3
+   */
+  public void setStallTimeout(long timeout, TimeUnit unit) {
+    this.stallTimeoutNanos = unit.toNanos(timeout);
   }
 
   /**
@@ -113,34 +253,108 @@ public class WorkflowExecutor {
   public void execute() throws MojoExecutionException, MojoFailureException {
     this.log.info("Executing the standard workflow of the goal");
     this.executedSteps = new Stack<Pair<CDIMojoProcessingStep, ExecutionContext>>();
+    this.resuming = this.checkpoint != null && this.checkpoint.isResume();
+    this.forkJoinPool = new ForkJoinPool();
+    this.channels = new Channels();
+    this.workflowData = new WorkflowData();
+    List<WorkflowListener> listeners = this.listeners;
+    if (this.stallTimeoutNanos > 0) {
+      this.listeners = ImmutableList.<WorkflowListener> builder().addAll(listeners)
+          .add(new StallDetector(this.stallTimeoutNanos, TimeUnit.NANOSECONDS, this.log)).build();
+    }
+    notifyListeners(ListenerCallback.WORKFLOW_STARTED, null, null);
 
+    Throwable failure = null;
     try {
       for (WorkflowStep workflowStep : this.workflow.getProcessingSteps()) {
         executeSequentialWorkflowStep(workflowStep);
         executeParallelWorkflowSteps(workflowStep);
+        // the step may have changed the state expressions refer to
+        this.expressionCache.invalidate();
+      }
+      if (this.checkpoint != null) {
+        this.checkpoint.discard();
       }
     } catch (MojoExecutionException e) {
+      failure = e;
       executeFinallySteps();
       throw e;
     } catch (MojoFailureException e) {
+      failure = e;
       executeFinallySteps();
       throw e;
     } catch (EnforceRollbackWithoutErrorException e) {
       executeFinallySteps();
+      if (this.checkpoint != null) {
+        this.checkpoint.discard();
+      }
       // Do not re-throw this exception, since we end with no error in this case!
     } catch (RuntimeException e) {
+      failure = e;
       executeFinallySteps();
       throw e;
+    } finally {
+      if (this.adaptiveThreadPool != null) {
+        this.adaptiveThreadPool.shutdown();
+        this.adaptiveThreadPool = null;
+      }
+      this.forkJoinPool.shutdown();
+      if (this.cpuExecutorService != null) {
+        this.cpuExecutorService.shutdown();
+        this.cpuExecutorService = null;
+      }
+      if (this.ioExecutorService != null) {
+        this.ioExecutorService.shutdown();
+        this.ioExecutorService = null;
+      }
+      saveDurationHistory();
+      notifyListeners(ListenerCallback.WORKFLOW_FINISHED, null, failure);
+      this.listeners = listeners;
+    }
+  }
+
+  private void notifyListeners(ListenerCallback callback, String compositeStepId, Throwable error) {
+    if (this.listeners.isEmpty()) {
+      return;
+    }
+    WorkflowEvent event = new WorkflowEvent(this.workflow.getGoal(), compositeStepId, error);
+    for (WorkflowListener listener : this.listeners) {
+      try {
+        callback.call(listener, event);
+      } catch (RuntimeException e) {
+        this.log.warn("The workflow listener " + listener.getClass().getName() + " failed to process " + event, e);
+      }
+    }
+  }
+
+  private void saveDurationHistory() {
+    if (this.durationHistory != null) {
+      try {
+        this.durationHistory.save();
+      } catch (IOException e) {
+        this.log.warn("Unable to write the step duration history " + this.durationHistory.getHistoryFile()
+            + ": " + e.getMessage());
+      }
     }
   }
 
   private void executeFinallySteps() throws MojoExecutionException, MojoFailureException {
     if (!this.workflow.getFinallySteps().isEmpty()) {
       this.log.info("Executing the finally workflow of the goal");
+      notifyListeners(ListenerCallback.FINALLY_STARTED, null, null);
       this.executedSteps.clear();
+      // finally steps are neither recorded nor skipped
+      this.resuming = false;
+      WorkflowCheckpoint checkpoint = this.checkpoint;
+      this.checkpoint = null;
 
-      for (SimpleWorkflowStep step : this.workflow.getFinallySteps()) {
-        executeSequentialWorkflowStep(step);
+      try {
+        for (SimpleWorkflowStep step : this.workflow.getFinallySteps()) {
+          executeSequentialWorkflowStep(step);
+          this.expressionCache.invalidate();
+        }
+      } finally {
+        this.checkpoint = checkpoint;
       }
     }
   }
@@ -152,15 +366,28 @@ public class WorkflowExecutor {
     }
 
     SimpleWorkflowStep simpleWorkflowStep = (SimpleWorkflowStep) workflowStep;
-    ExecutionContext executionContext = this.workflow.getExecutionContext(simpleWorkflowStep.getCompositeStepId());
+    ExecutionContext executionContext = this.executionContexts.get(simpleWorkflowStep.getCompositeStepId());
     CDIMojoProcessingStep step = this.processingSteps.get(simpleWorkflowStep.getStepId());
     try {
+      expandProjectVariables(executionContext);
+      if (this.resuming) {
+        if (!this.checkpoint.isCompleted(executionContext)) {
+          this.resuming = false;
+        } else if (isResumable(step)) {
+          this.log.info("Skipping the workflow step with id '" + simpleWorkflowStep.getCompositeStepId()
+              + "' since it has already been completed by a previous execution.");
+          return;
+        }
+      }
       this.executedSteps.push(Pair.of(step, executionContext));
-      executionContext.expandProjectVariables(this.expressionEvaluator);
-      step.execute(executionContext);
+      executeStep(step, executionContext);
+      if (this.checkpoint != null) {
+        this.checkpoint.stepCompleted(executionContext);
+      }
     } catch (Throwable t) {
       this.log.error("An exception was caught while processing the workflow step with id '"
           + simpleWorkflowStep.getCompositeStepId() + "'.", t);
+      this.channels.abort(t);
       rollback(t);
 
       // throw original exception after rollback!
@@ -184,46 +411,18 @@ public class WorkflowExecutor {
       return;
     }
 
-    Queue<Future<?>> results = new LinkedList<Future<?>>();
     final List<Throwable> thrownExceptions = Lists.newArrayList();
 
     ParallelWorkflowStep parallelWorkflowStep = (ParallelWorkflowStep) workflowStep;
-    ExecutorService executorService = Executors.newFixedThreadPool(parallelWorkflowStep.getSteps().size());
-    for (final SimpleWorkflowStep simpleWorkflowStep : parallelWorkflowStep.getSteps()) {
-      results.offer(executorService.submit(new Runnable() {
-        @Override
-        public void run() {
-          CDIMojoProcessingStep step = WorkflowExecutor.this.processingSteps.get(simpleWorkflowStep.getStepId());
-          try {
-            ExecutionContext executionContext = WorkflowExecutor.this.workflow
-                .getExecutionContext(simpleWorkflowStep.getCompositeStepId());
-            WorkflowExecutor.this.executedSteps.push(Pair.of(step, executionContext));
-            executionContext.expandProjectVariables(WorkflowExecutor.this.expressionEvaluator);
-            step.execute(executionContext);
-          } catch (Throwable t) {
-            WorkflowExecutor.this.log.error("An exception was caught while processing the workflow step with id '"
-                + simpleWorkflowStep.getCompositeStepId() + "'.", t);
-            if (thrownExceptions.size() > 0 && thrownExceptions.get(0) instanceof EnforceRollbackWithoutErrorException
-                && !(t instanceof EnforceRollbackWithoutErrorException)) {
-              // prioritize other Exception before EnforceRollbackWithoutErrorException
-              thrownExceptions.add(0, t);
-            } else {
-              thrownExceptions.add(t);
-            }
-          }
-        }
-      }));
+    List<SimpleWorkflowStep> stepsToExecute = getParallelStepsToExecute(parallelWorkflowStep);
+    if (stepsToExecute.isEmpty()) {
+      return;
     }
 
-    while (!results.isEmpty()) {
-      Future<?> result = results.poll();
-      try {
-        result.get();
-      } catch (InterruptedException e) {
-        results.offer(result);
-      } catch (ExecutionException e) {
-        // do nothing since this exception will be handled later!
-      }
+    if (parallelWorkflowStep.isPipeline()) {
+      executePipelineSteps(stepsToExecute, thrownExceptions);
+    } else {
+      executeParallelSteps(stepsToExecute, thrownExceptions);
     }
 
     Throwable firstError = Iterables.getFirst(thrownExceptions, null);
@@ -244,12 +443,262 @@ public class WorkflowExecutor {
     }
   }
 
+  private void executeParallelSteps(List<SimpleWorkflowStep> stepsToExecute, List<Throwable> thrownExceptions) {
+    Queue<Future<?>> results = new LinkedList<Future<?>>();
+
+    // submitting the longest running steps first shortens the overall execution time on a bounded pool
+    if (this.durationHistory != null) {
+      this.durationHistory.sortByExpectedDuration(stepsToExecute);
+    }
+
+    // dispatching the steps to the pools matching their cost classes, main thread steps are executed last
+    List<SimpleWorkflowStep> defaultSteps = Lists.newArrayList();
+    List<SimpleWorkflowStep> mainThreadSteps = Lists.newArrayList();
+    for (SimpleWorkflowStep simpleWorkflowStep : stepsToExecute) {
+      switch (getCostClass(this.processingSteps.get(simpleWorkflowStep.getStepId()))) {
+        case CPU:
+          results.offer(getCpuExecutorService().submit(createParallelStepTask(simpleWorkflowStep, thrownExceptions)));
+          break;
+        case IO:
+          results.offer(getIoExecutorService().submit(createParallelStepTask(simpleWorkflowStep, thrownExceptions)));
+          break;
+        case MAIN_THREAD:
+          mainThreadSteps.add(simpleWorkflowStep);
+          break;
+        default:
+          defaultSteps.add(simpleWorkflowStep);
+          break;
+      }
+    }
+    if (!defaultSteps.isEmpty()) {
+      ExecutorService executorService = getParallelExecutorService(defaultSteps.size());
+      for (SimpleWorkflowStep simpleWorkflowStep : defaultSteps) {
+        results.offer(executorService.submit(createParallelStepTask(simpleWorkflowStep, thrownExceptions)));
+      }
+      if (executorService != this.adaptiveThreadPool) {
+        executorService.shutdown();
+      }
+    }
+    for (SimpleWorkflowStep simpleWorkflowStep : mainThreadSteps) {
+      createParallelStepTask(simpleWorkflowStep, thrownExceptions).run();
+    }
+
+    awaitResults(results);
+  }
+
+  private void executePipelineSteps(List<SimpleWorkflowStep> stepsToExecute, List<Throwable> thrownExceptions) {
+    // the steps of a pipeline block each other through their channels and must therefore all run concurrently on
+    // dedicated threads, regardless of their cost classes and the configured parallelism
+    Queue<Future<?>> results = new LinkedList<Future<?>>();
+    ExecutorService executorService = Executors.newFixedThreadPool(stepsToExecute.size(),
+        new ThreadFactoryBuilder().setNameFormat("workflow-pipeline-%d").build());
+    for (SimpleWorkflowStep simpleWorkflowStep : stepsToExecute) {
+      results.offer(executorService.submit(createParallelStepTask(simpleWorkflowStep, thrownExceptions)));
+    }
+    executorService.shutdown();
+    awaitResults(results);
+  }
+
+  private void awaitResults(Queue<Future<?>> results) {
+    while (!results.isEmpty()) {
+      Future<?> result = results.poll();
+      try {
+        result.get();
+      } catch (InterruptedException e) {
+        results.offer(result);
+      } catch (ExecutionException e) {
+        // do nothing since this exception will be handled later!
+      }
+    }
+
+  }
+
+  private void executeStep(CDIMojoProcessingStep step, ExecutionContext executionContext)
+      throws MojoExecutionException, MojoFailureException {
+    Subtasks subtasks = new Subtasks(this.forkJoinPool);
+    ExecutionContextAccess access = ExecutionContextAccess.get();
+    access.setSubtasks(executionContext, subtasks);
+    access.setChannels(executionContext, this.channels);
+    access.setWorkflowData(executionContext, this.workflowData);
+    notifyListeners(ListenerCallback.STEP_STARTED, executionContext.getCompositeStepId(), null);
+    FlightRecorderEvent.Event event = FlightRecorderEvent.STEP_EXECUTION.begin(this.workflow.getGoal(),
+        executionContext.getCompositeStepId());
+    try {
+      step.execute(executionContext);
+      // failures of subtasks that have not been joined by the step fail the step
+      subtasks.joinAll();
+      this.channels.stepCompleted(executionContext.getCompositeStepId());
+      notifyListeners(ListenerCallback.STEP_FINISHED, executionContext.getCompositeStepId(), null);
+    } catch (MojoExecutionException | MojoFailureException | RuntimeException | Error e) {
+      notifyListeners(ListenerCallback.STEP_FAILED, executionContext.getCompositeStepId(), e);
+      subtasks.cancelAll();
+      throw e;
+    } finally {
+      event.commit();
+      access.setSubtasks(executionContext, null);
+      access.setChannels(executionContext, null);
+      access.setWorkflowData(executionContext, null);
+    }
+  }
+
+  private Runnable createParallelStepTask(final SimpleWorkflowStep simpleWorkflowStep,
+      final List<Throwable> thrownExceptions) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        CDIMojoProcessingStep step = WorkflowExecutor.this.processingSteps.get(simpleWorkflowStep.getStepId());
+        try {
+          ExecutionContext executionContext = WorkflowExecutor.this.executionContexts
+              .get(simpleWorkflowStep.getCompositeStepId());
+          WorkflowExecutor.this.executedSteps.push(Pair.of(step, executionContext));
+          expandProjectVariables(executionContext);
+          long start = System.nanoTime();
+          executeStep(step, executionContext);
+          if (WorkflowExecutor.this.durationHistory != null) {
+            WorkflowExecutor.this.durationHistory.record(simpleWorkflowStep.getCompositeStepId(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+          }
+          if (WorkflowExecutor.this.checkpoint != null) {
+            WorkflowExecutor.this.checkpoint.stepCompleted(executionContext);
+          }
+        } catch (Throwable t) {
+          WorkflowExecutor.this.log.error("An exception was caught while processing the workflow step with id '"
+              + simpleWorkflowStep.getCompositeStepId() + "'.", t);
+          // the failure must be recorded before the channels are aborted since the released steps fail as well
+          addThrownException(thrownExceptions, t);
+          // releases the steps that are blocked on a channel shared with the failed step
+          WorkflowExecutor.this.channels.abort(t);
+        }
+      }
+    };
+  }
+
+  private void addThrownException(List<Throwable> thrownExceptions, Throwable t) {
+    synchronized (thrownExceptions) {
+      // prioritize other exceptions before failures of aborted channels and before
+      // EnforceRollbackWithoutErrorException
+      int priority = getPriority(t);
+      int index = 0;
+      while (index < thrownExceptions.size() && getPriority(thrownExceptions.get(index)) <= priority) {
+        index++;
+      }
+      thrownExceptions.add(index, t);
+    }
+  }
+
+  private int getPriority(Throwable t) {
+    if (t instanceof EnforceRollbackWithoutErrorException) {
+      return 2;
+    } else if (this.channels.isAbortFailure(t)) {
+      return 1;
+    }
+    return 0;
+  }
+
+  private CostClass getCostClass(CDIMojoProcessingStep step) {
+    ProcessingStep stepAnnotation = step.getClass().getAnnotation(ProcessingStep.class);
+    return stepAnnotation != null ? stepAnnotation.costClass() : CostClass.DEFAULT;
+  }
+
+  private ExecutorService getCpuExecutorService() {
+    if (this.cpuExecutorService == null) {
+      this.cpuExecutorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+          new ThreadFactoryBuilder().setNameFormat("workflow-cpu-%d").build());
+    }
+    return this.cpuExecutorService;
+  }
+
+  private ExecutorService getIoExecutorService() {
+    if (this.ioExecutorService == null) {
+      this.ioExecutorService = Executors.newFixedThreadPool(this.ioParallelism,
+          new ThreadFactoryBuilder().setNameFormat("workflow-io-%d").build());
+    }
+    return this.ioExecutorService;
+  }
+
+  private ExecutorService getParallelExecutorService(int numberOfSteps) {
+    if (this.adaptiveParallelism) {
+      if (this.adaptiveThreadPool == null) {
+        int maxThreads = this.maxParallelism > 0 ? this.maxParallelism
+            : Runtime.getRuntime().availableProcessors() * 4;
+        this.adaptiveThreadPool = new AdaptiveThreadPool(this.minAdaptiveParallelism, maxThreads, this.log);
+      }
+      return this.adaptiveThreadPool;
+    }
+
+    int nThreads = numberOfSteps;
+    if (this.maxParallelism > 0) {
+      nThreads = Math.min(nThreads, this.maxParallelism);
+    }
+    return Executors.newFixedThreadPool(nThreads);
+  }
+
+  private List<SimpleWorkflowStep> getParallelStepsToExecute(ParallelWorkflowStep parallelWorkflowStep) {
+    List<SimpleWorkflowStep> stepsToExecute = Lists.newArrayList(parallelWorkflowStep.getSteps());
+    if (!this.resuming) {
+      return stepsToExecute;
+    }
+
+    // the block counts as completed only if all of its steps have been completed
+    boolean blockCompleted = true;
+    List<SimpleWorkflowStep> completedSteps = Lists.newArrayList();
+    for (SimpleWorkflowStep simpleWorkflowStep : stepsToExecute) {
+      ExecutionContext executionContext = this.executionContexts.get(simpleWorkflowStep.getCompositeStepId());
+      expandProjectVariables(executionContext);
+      if (!this.checkpoint.isCompleted(executionContext)) {
+        blockCompleted = false;
+      } else if (isResumable(this.processingSteps.get(simpleWorkflowStep.getStepId()))) {
+        completedSteps.add(simpleWorkflowStep);
+      }
+    }
+    this.resuming = blockCompleted;
+
+    // the steps of a pipeline depend on each other and are thus re-executed all together unless the pipeline has been
+    // completed
+    if (parallelWorkflowStep.isPipeline() && !blockCompleted) {
+      return stepsToExecute;
+    }
+    for (SimpleWorkflowStep simpleWorkflowStep : completedSteps) {
+      this.log.info("Skipping the workflow step with id '" + simpleWorkflowStep.getCompositeStepId()
+          + "' since it has already been completed by a previous execution.");
+      stepsToExecute.remove(simpleWorkflowStep);
+    }
+    return stepsToExecute;
+  }
+
+  private void expandProjectVariables(ExecutionContext executionContext) {
+    if (this.checkpoint != null) {
+      // the checkpoint records the data after the step execution which must not see any state changed by the step
+      executionContext.expandAllProjectVariables(this.expressionCache);
+    } else {
+      executionContext.expandProjectVariables(this.expressionCache);
+    }
+  }
+
+  private boolean isResumable(CDIMojoProcessingStep step) {
+    ProcessingStep stepAnnotation = step.getClass().getAnnotation(ProcessingStep.class);
+    return stepAnnotation == null || stepAnnotation.resumable();
+  }
+
   private void rollback(Throwable t) {
     this.log.info("Rolling back after execution errors - please find the error messages and stack traces above.");
+    notifyListeners(ListenerCallback.ROLLBACK_STARTED, null, t);
+    boolean keepCompletedSteps = this.checkpoint != null && !(t instanceof EnforceRollbackWithoutErrorException);
     while (!this.executedSteps.empty()) {
       Pair<CDIMojoProcessingStep, ExecutionContext> pair = this.executedSteps.pop();
+      if (keepCompletedSteps && this.checkpoint.isCompleted(pair.getRight())) {
+        this.log.info("Skipping the rollback of the workflow step with id '" + pair.getRight().getCompositeStepId()
+            + "' since it has been completed and recorded in the workflow checkpoint.");
+        continue;
+      }
       rollback(pair.getLeft(), pair.getRight(), t);
     }
+    if (keepCompletedSteps) {
+      this.log.info("The completed workflow steps have been recorded in the workflow checkpoint "
+          + this.checkpoint.getJournalFile().getAbsolutePath()
+          + ". Re-run with -Dresume to continue the workflow from the point of failure.");
+    }
+    notifyListeners(ListenerCallback.ROLLBACK_FINISHED, null, t);
   }
 
   private void rollback(CDIMojoProcessingStep step, ExecutionContext executionContext, Throwable t) {
@@ -263,8 +712,11 @@ public class WorkflowExecutor {
     });
 
     // call rollback methods
+    notifyListeners(ListenerCallback.STEP_ROLLBACK_STARTED, executionContext.getCompositeStepId(), t);
     for (Method rollbackMethod : rollbackMethods) {
       rollbackMethod.setAccessible(true);
+      FlightRecorderEvent.Event event = FlightRecorderEvent.ROLLBACK.begin(executionContext.getCompositeStepId(),
+          rollbackMethod.getName());
       try {
         Class<?>[] parameterTypes = rollbackMethod.getParameterTypes();
         switch (parameterTypes.length) {
@@ -289,8 +741,11 @@ public class WorkflowExecutor {
       } catch (ReflectiveOperationException e) {
         this.log.error("An exception was caught while rolling back the workflow step with id '"
             + executionContext.getCompositeStepId() + "'. Proceeding with the rollback of the next steps.", e);
+      } finally {
+        event.commit();
       }
     }
+    notifyListeners(ListenerCallback.STEP_ROLLBACK_FINISHED, executionContext.getCompositeStepId(), t);
   }
 
   private <T extends Throwable> List<Method> getRollbackMethods(CDIMojoProcessingStep mojo, Class<T> causeType) {
@@ -346,4 +801,69 @@ public class WorkflowExecutor {
 
     return rollbackMethods;
   }
+
+  private enum ListenerCallback {
+    WORKFLOW_STARTED {
+      @Override
+      void call(WorkflowListener listener, WorkflowEvent event) {
+        listener.workflowStarted(event);
+      }
+    },
+    WORKFLOW_FINISHED {
+      @Override
+      void call(WorkflowListener listener, WorkflowEvent event) {
+        listener.workflowFinished(event);
+      }
+    },
+    STEP_STARTED {
+      @Override
+      void call(WorkflowListener listener, WorkflowEvent event) {
+        listener.stepStarted(event);
+      }
+    },
+    STEP_FINISHED {
+      @Override
+      void call(WorkflowListener listener, WorkflowEvent event) {
+        listener.stepFinished(event);
+      }
+    },
+    STEP_FAILED {
+      @Override
+      void call(WorkflowListener listener, WorkflowEvent event) {
+        listener.stepFailed(event);
+      }
+    },
+    ROLLBACK_STARTED {
+      @Override
+      void call(WorkflowListener listener, WorkflowEvent event) {
+        listener.rollbackStarted(event);
+      }
+    },
+    STEP_ROLLBACK_STARTED {
+      @Override
+      void call(WorkflowListener listener, WorkflowEvent event) {
+        listener.stepRollbackStarted(event);
+      }
+    },
+    STEP_ROLLBACK_FINISHED {
+      @Override
+      void call(WorkflowListener listener, WorkflowEvent event) {
+        listener.stepRollbackFinished(event);
+      }
+    },
+    ROLLBACK_FINISHED {
+      @Override
+      void call(WorkflowListener listener, WorkflowEvent event) {
+        listener.rollbackFinished(event);
+      }
+    },
+    FINALLY_STARTED {
+      @Override
+      void call(WorkflowListener listener, WorkflowEvent event) {
+        listener.finallyStarted(event);
+      }
+    };
+
+    abstract void call(WorkflowListener listener, WorkflowEvent event);
+  }
 }
@@ -0,0 +1,19 @@
+package com.itemis.maven.plugins.cdi.internal.util.workflow;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Resolves the workflow fragments that are included by workflow descriptors using the <code>include</code> directive.
+ *
+ * @since 4.0.3
+ */
+public interface WorkflowFragmentResolver {
+  /**
+   * @param fragmentName the name of the fragment as stated by the include directive.
+   * @return the parsed steps of the fragment. The returned list must not be modified.
+   * @throws IOException if the fragment could not be found or read.
+   * @throws IllegalStateException if the fragment includes itself directly or transitively.
+   */
+  List<WorkflowStep> resolve(String fragmentName) throws IOException;
+}
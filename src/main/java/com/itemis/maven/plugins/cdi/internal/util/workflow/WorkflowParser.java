@@ -0,0 +1,380 @@
+package com.itemis.maven.plugins.cdi.internal.util.workflow;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.itemis.maven.plugins.cdi.exception.WorkflowSyntaxException;
+
+/**
+ * A single-pass parser for workflow descriptors. The descriptor is tokenized while it is read from the underlying
+ * reader and the workflow is built by a recursive descent over the following grammar:
+ *
+ * <pre>
+ * workflow  := 'try' '{' steps '}' 'finally' '{' (include | step)* '}' | steps
+ * fragment  := steps
+ * steps     := (include | parallel | step)*
+ * include   := 'include' name
+ * parallel  := ('parallel' | 'pipeline') '{' step* '}'
+ * step      := id ('[' qualifier ']')? ('{' data* '}')?
+ * data      := ('data' | 'rollbackData') '=' &lt;rest of line&gt;
+ * </pre>
+ *
+ * Included fragments are resolved using a {@link WorkflowFragmentResolver} and their steps are inlined at the position
+ * of the include directive. A <code>#</code> starts a comment up to the end of the line anywhere except within
+ * qualifiers and data values. Syntax errors are reported using {@link WorkflowSyntaxException}s carrying the line and
+ * column of the error.
+ *
+ * @since 4.0.3
+ */
+public class WorkflowParser {
+  private static final int EOF = -1;
+
+  private enum TokenType {
+    WORD, BLOCK_OPEN, BLOCK_CLOSE, QUALIFIER, END
+  }
+
+  private final Reader reader;
+  private final String goalName;
+  private final String source;
+  private final WorkflowFragmentResolver fragmentResolver;
+  private int nextChar;
+  private int line;
+  private int column;
+
+  private TokenType tokenType;
+  private String tokenText;
+  private int tokenLine;
+  private int tokenColumn;
+
+  private WorkflowParser(Reader reader, String goalName, String source, WorkflowFragmentResolver fragmentResolver) {
+    this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+    this.goalName = goalName;
+    this.source = source;
+    this.fragmentResolver = fragmentResolver;
+    this.line = 1;
+  }
+
+  /**
+   * Parses a workflow descriptor. The reader is not closed by this method.
+   *
+   * @param reader the reader to read the workflow descriptor from.
+   * @param goalName the name of the goal this workflow is designed for, used for error messages.
+   * @return the parsed processing workflow.
+   * @throws IOException if the workflow descriptor could not be read.
+   * @throws WorkflowSyntaxException if the workflow descriptor is syntactically invalid.
+   */
+  public static ProcessingWorkflow parse(Reader reader, String goalName) throws IOException {
+    return parse(reader, goalName, new DefaultWorkflowFragmentResolver(Optional.<File> absent(), null));
+  }
+
+  /**
+   * Parses a workflow descriptor. The reader is not closed by this method.
+   *
+   * @param reader the reader to read the workflow descriptor from.
+   * @param goalName the name of the goal this workflow is designed for, used for error messages.
+   * @param fragmentResolver the resolver for fragments included by the workflow descriptor.
+   * @return the parsed processing workflow.
+   * @throws IOException if the workflow descriptor could not be read.
+   * @throws WorkflowSyntaxException if the workflow descriptor or any included fragment is syntactically invalid.
+   */
+  public static ProcessingWorkflow parse(Reader reader, String goalName, WorkflowFragmentResolver fragmentResolver)
+      throws IOException {
+    String source = goalName != null ? "workflow descriptor of goal '" + goalName + "'" : "workflow descriptor";
+    return new WorkflowParser(reader, goalName, source, fragmentResolver).parseWorkflow();
+  }
+
+  /**
+   * Parses a workflow fragment which may only consist of steps, parallel blocks and includes of further fragments. The
+   * reader is not closed by this method.
+   *
+   * @param reader the reader to read the fragment from.
+   * @param fragmentName the name of the fragment, used for error messages.
+   * @param fragmentResolver the resolver for fragments included by the fragment.
+   * @return the steps of the fragment.
+   * @throws IOException if the fragment could not be read.
+   * @throws WorkflowSyntaxException if the fragment or any included fragment is syntactically invalid.
+   */
+  public static List<WorkflowStep> parseFragment(Reader reader, String fragmentName,
+      WorkflowFragmentResolver fragmentResolver) throws IOException {
+    WorkflowParser parser = new WorkflowParser(reader, null, "workflow fragment '" + fragmentName + "'",
+        fragmentResolver);
+    parser.start();
+    List<WorkflowStep> steps = Lists.newArrayList();
+    parser.parseSteps(steps);
+    parser.expect(TokenType.END, "Expected a step, a parallel-block or an include");
+    return steps;
+  }
+
+  private void start() throws IOException {
+    this.nextChar = this.reader.read();
+    advance();
+  }
+
+  private ProcessingWorkflow parseWorkflow() throws IOException {
+    ProcessingWorkflow.Builder workflow = ProcessingWorkflow.builder(this.goalName);
+    List<WorkflowStep> steps = Lists.newArrayList();
+    start();
+
+    if (isKeyword(WorkflowConstants.KW_TRY)) {
+      advance();
+      expect(TokenType.BLOCK_OPEN, "The try-block opening must end with the block opening character '"
+          + WorkflowConstants.KW_BLOCK_OPEN + "'");
+      parseSteps(steps);
+      expect(TokenType.BLOCK_CLOSE, "Expected a step, a parallel-block or the closing of the try-block");
+      if (!isKeyword(WorkflowConstants.KW_FINALLY)) {
+        throw error("The try-block must be followed by a finally-block");
+      }
+      advance();
+      expect(TokenType.BLOCK_OPEN, "The finally-block opening must end with the block opening character '"
+          + WorkflowConstants.KW_BLOCK_OPEN + "'");
+      while (this.tokenType == TokenType.WORD) {
+        if (isKeyword(WorkflowConstants.KW_PARALLEL) || isKeyword(WorkflowConstants.KW_PIPELINE)) {
+          throw error("Parallel and pipeline blocks are not supported within the finally-block");
+        } else if (isKeyword(WorkflowConstants.KW_INCLUDE)) {
+          int includeLine = this.tokenLine;
+          int includeColumn = this.tokenColumn;
+          for (WorkflowStep step : parseInclude()) {
+            if (step.isParallel()) {
+              throw new WorkflowSyntaxException(formatMessage(
+                  "Fragments included within the finally-block must not contain parallel or pipeline blocks"),
+                  includeLine, includeColumn);
+            }
+            workflow.addFinallyStep((SimpleWorkflowStep) step);
+          }
+        } else {
+          workflow.addFinallyStep(parseStep());
+        }
+      }
+      expect(TokenType.BLOCK_CLOSE, "Expected a step or the closing of the finally-block");
+      expect(TokenType.END, "No statements are allowed after the finally-block");
+    } else {
+      parseSteps(steps);
+      expect(TokenType.END, "Expected a step or a parallel-block");
+    }
+
+    for (WorkflowStep step : steps) {
+      workflow.addProcessingStep(step);
+    }
+    return workflow.build();
+  }
+
+  private void parseSteps(List<WorkflowStep> steps) throws IOException {
+    while (this.tokenType == TokenType.WORD) {
+      if (isKeyword(WorkflowConstants.KW_TRY)) {
+        throw error("The try-block opening must be the first statement. Only comments are allowed to occur before"
+            + " opening the try-block");
+      } else if (isKeyword(WorkflowConstants.KW_FINALLY)) {
+        throw error("There is a finally-block opening without a related try-block");
+      } else if (isKeyword(WorkflowConstants.KW_PARALLEL) || isKeyword(WorkflowConstants.KW_PIPELINE)) {
+        steps.add(parseParallelBlock());
+      } else if (isKeyword(WorkflowConstants.KW_INCLUDE)) {
+        steps.addAll(parseInclude());
+      } else {
+        steps.add(parseStep());
+      }
+    }
+  }
+
+  private List<WorkflowStep> parseInclude() throws IOException {
+    int includeLine = this.tokenLine;
+    int includeColumn = this.tokenColumn;
+    advance();
+    if (this.tokenType != TokenType.WORD || this.tokenLine != includeLine) {
+      throw error("Expected the name of the fragment to include on the same line as '" + WorkflowConstants.KW_INCLUDE
+          + "'");
+    }
+    String fragmentName = this.tokenText;
+    List<WorkflowStep> steps;
+    try {
+      steps = this.fragmentResolver.resolve(fragmentName);
+    } catch (IOException | IllegalStateException e) {
+      throw new WorkflowSyntaxException(
+          formatMessage("Unable to include the fragment '" + fragmentName + "': " + e.getMessage()), includeLine,
+          includeColumn);
+    }
+    advance();
+    return steps;
+  }
+
+  private ParallelWorkflowStep parseParallelBlock() throws IOException {
+    String keyword = this.tokenText;
+    ParallelWorkflowStep.Builder builder = ParallelWorkflowStep.builder();
+    if (Objects.equal(WorkflowConstants.KW_PIPELINE, keyword)) {
+      builder.pipeline();
+    }
+    advance();
+    expect(TokenType.BLOCK_OPEN, "The " + keyword + "-block opening must end with the block opening character '"
+        + WorkflowConstants.KW_BLOCK_OPEN + "'");
+    while (this.tokenType == TokenType.WORD) {
+      if (isKeyword(WorkflowConstants.KW_PARALLEL) || isKeyword(WorkflowConstants.KW_PIPELINE)
+          || isKeyword(WorkflowConstants.KW_TRY) || isKeyword(WorkflowConstants.KW_FINALLY)) {
+        throw error("Blocks cannot be nested within a " + keyword + "-block");
+      } else if (isKeyword(WorkflowConstants.KW_INCLUDE)) {
+        throw error("Fragments cannot be included within a " + keyword + "-block");
+      }
+      builder.addSteps(parseStep());
+    }
+    expect(TokenType.BLOCK_CLOSE, "Expected a step or the closing of the " + keyword + "-block");
+    return builder.build();
+  }
+
+  private SimpleWorkflowStep parseStep() throws IOException {
+    String id = this.tokenText;
+    advance();
+
+    Optional<String> qualifier = Optional.absent();
+    if (this.tokenType == TokenType.QUALIFIER) {
+      qualifier = Optional.of(this.tokenText);
+      advance();
+    }
+
+    String data = null;
+    String rollbackData = null;
+    if (this.tokenType == TokenType.BLOCK_OPEN) {
+      advance();
+      while (this.tokenType == TokenType.WORD) {
+        if (isKeyword(WorkflowConstants.KW_DATA)) {
+          data = readAssignedValue();
+        } else if (isKeyword(WorkflowConstants.KW_ROLLBACK_DATA)) {
+          rollbackData = readAssignedValue();
+        } else {
+          throw error("Expected '" + WorkflowConstants.KW_DATA + "' or '" + WorkflowConstants.KW_ROLLBACK_DATA
+              + "' within the data block of step '" + id + "'");
+        }
+        advance();
+      }
+      expect(TokenType.BLOCK_CLOSE, "Expected the closing of the data block of step '" + id + "'");
+    }
+    return new SimpleWorkflowStep(id, qualifier, Optional.fromNullable(data), Optional.fromNullable(rollbackData));
+  }
+
+  private String readAssignedValue() throws IOException {
+    while (this.nextChar == ' ' || this.nextChar == '\t') {
+      read();
+    }
+    if (this.nextChar != WorkflowConstants.KW_DATA_ASSIGNMENT.charAt(0)) {
+      throw new WorkflowSyntaxException(formatMessage("Expected '" + WorkflowConstants.KW_DATA_ASSIGNMENT + "' after '"
+          + this.tokenText + "'"), this.line, this.column + 1);
+    }
+    read();
+    StringBuilder value = new StringBuilder();
+    while (this.nextChar != EOF && this.nextChar != '\n') {
+      value.append((char) read());
+    }
+    return value.toString().trim();
+  }
+
+  private boolean isKeyword(String keyword) {
+    return this.tokenType == TokenType.WORD && Objects.equal(keyword, this.tokenText);
+  }
+
+  private void expect(TokenType type, String message) throws IOException {
+    if (this.tokenType != type) {
+      throw error(message);
+    }
+    if (type != TokenType.END) {
+      advance();
+    }
+  }
+
+  private WorkflowSyntaxException error(String message) {
+    String found;
+    switch (this.tokenType) {
+      case END:
+        found = "the end of the descriptor";
+        break;
+      case QUALIFIER:
+        found = "'" + WorkflowConstants.KW_QUALIFIER_OPEN + this.tokenText + WorkflowConstants.KW_QUALIFIER_CLOSE + "'";
+        break;
+      default:
+        found = "'" + this.tokenText + "'";
+        break;
+    }
+    return new WorkflowSyntaxException(formatMessage(message + " but found " + found), this.tokenLine,
+        this.tokenColumn);
+  }
+
+  private String formatMessage(String message) {
+    return "Invalid " + this.source + ": " + message;
+  }
+
+  private void advance() throws IOException {
+    skipWhitespaceAndComments();
+    this.tokenLine = this.line;
+    this.tokenColumn = this.column + 1;
+
+    int c = this.nextChar;
+    if (c == EOF) {
+      this.tokenType = TokenType.END;
+      this.tokenText = null;
+    } else if (c == '{') {
+      read();
+      this.tokenType = TokenType.BLOCK_OPEN;
+      this.tokenText = WorkflowConstants.KW_BLOCK_OPEN;
+    } else if (c == '}') {
+      read();
+      this.tokenType = TokenType.BLOCK_CLOSE;
+      this.tokenText = WorkflowConstants.KW_BLOCK_CLOSE;
+    } else if (c == '[') {
+      read();
+      StringBuilder qualifier = new StringBuilder();
+      while (this.nextChar != ']') {
+        if (this.nextChar == EOF || this.nextChar == '\n') {
+          throw new WorkflowSyntaxException(formatMessage("The qualifier is not closed using '"
+              + WorkflowConstants.KW_QUALIFIER_CLOSE + "'"), this.tokenLine, this.tokenColumn);
+        }
+        qualifier.append((char) read());
+      }
+      read();
+      this.tokenType = TokenType.QUALIFIER;
+      this.tokenText = qualifier.toString();
+    } else if (isWordChar(c)) {
+      StringBuilder word = new StringBuilder();
+      while (isWordChar(this.nextChar)) {
+        word.append((char) read());
+      }
+      this.tokenType = TokenType.WORD;
+      this.tokenText = word.toString();
+    } else {
+      throw new WorkflowSyntaxException(formatMessage("Unexpected character '" + (char) c + "'"), this.tokenLine,
+          this.tokenColumn);
+    }
+  }
+
+  private void skipWhitespaceAndComments() throws IOException {
+    while (true) {
+      if (this.nextChar != EOF && Character.isWhitespace(this.nextChar)) {
+        read();
+      } else if (this.nextChar == '#') {
+        while (this.nextChar != EOF && this.nextChar != '\n') {
+          read();
+        }
+      } else {
+        return;
+      }
+    }
+  }
+
+  private static boolean isWordChar(int c) {
+    return c != EOF && !Character.isWhitespace(c) && c != '{' && c != '}' && c != '[' && c != ']' && c != '#'
+        && c != '=';
+  }
+
+  private int read() throws IOException {
+    int c = this.nextChar;
+    if (c == '\n') {
+      this.line++;
+      this.column = 0;
+    } else {
+      this.column++;
+    }
+    this.nextChar = this.reader.read();
+    return c;
+  }
+}
@@ -1,28 +1,40 @@
 package com.itemis.maven.plugins.cdi.internal.util.workflow;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.URL;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.descriptor.PluginDescriptor;
 
+import com.google.common.base.Joiner;
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
 import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
 import com.itemis.maven.plugins.cdi.ExecutionContext;
 import com.itemis.maven.plugins.cdi.annotations.ProcessingStep;
-import com.itemis.maven.plugins.cdi.internal.util.workflow.ParallelWorkflowStep.Builder;
+import com.itemis.maven.plugins.cdi.exception.WorkflowSyntaxException;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowCodec.CompiledWorkflow;
 import com.itemis.maven.plugins.cdi.logging.Logger;
 
 import de.vandermeer.asciitable.AT_Context;
@@ -43,7 +55,7 @@ public class WorkflowUtil {
 
   public static final String CONTEXT_DATA_MAP_ASSIGNMENT = "=>";
   public static final String CONTEXT_DATA_SEPARATOR = ",";
-  private static final String DEFAULT_WORKFLOW_DIR = "META-INF/workflows";
+  public static final String DEFAULT_WORKFLOW_DIR = "META-INF/workflows";
 
   /**
    * Parses a workflow from its descriptor representation.
@@ -51,76 +63,16 @@ public class WorkflowUtil {
    * @param trimmedWorkflowLines the lines read from the workflow and trimmed.
    * @param goalName the name of the goal this workflow is designed for.
    * @return the parsed processing workflow.
+   * @throws WorkflowSyntaxException if the workflow descriptor is syntactically invalid.
    *
    * @since 4.0.2
    */
-  // TODO rework parser! -> too many decision branches!
   public static ProcessingWorkflow parseWorkflow(List<String> trimmedWorkflowLines, String goalName) {
-    ProcessingWorkflow workflow = new ProcessingWorkflow(goalName);
-
-    Builder parallelStepBuilder = null;
-    SimpleWorkflowStep currentStep = null;
-    boolean isTryBlock = false;
-    boolean isFinallyBlock = false;
-
-    for (String line : trimmedWorkflowLines) {
-      if (line.startsWith(WorkflowConstants.KW_COMMENT) || line.isEmpty()) {
-        continue;
-      }
-
-      if (line.startsWith(WorkflowConstants.KW_TRY)) {
-        isTryBlock = true;
-        isFinallyBlock = false;
-      } else if (line.startsWith(WorkflowConstants.KW_PARALLEL)) {
-        if (isFinallyBlock) {
-          throw new RuntimeException(
-              "Parallel block is not supported within finally-block. Processed line was: '" + line + "'");
-        }
-        parallelStepBuilder = ParallelWorkflowStep.builder();
-      } else if (Objects.equal(WorkflowConstants.KW_BLOCK_CLOSE, line)) {
-        if (currentStep != null) {
-          currentStep = null;
-        } else if (parallelStepBuilder != null) {
-          workflow.addProcessingStep(parallelStepBuilder.build());
-          parallelStepBuilder = null;
-        } else if (isFinallyBlock) {
-          isFinallyBlock = false;
-        }
-      } else if (line.startsWith(WorkflowConstants.KW_BLOCK_CLOSE)) {
-        if (isTryBlock) {
-          isTryBlock = false;
-          String substring = line.substring(1).trim();
-          if (substring.startsWith(WorkflowConstants.KW_FINALLY)
-              && substring.endsWith(WorkflowConstants.KW_BLOCK_OPEN)) {
-            isFinallyBlock = true;
-          }
-        }
-      } else {
-        if (currentStep == null) {
-          String id = parseId(line);
-          Optional<String> qualifier = parseQualifier(line);
-          SimpleWorkflowStep step = new SimpleWorkflowStep(id, qualifier);
-          if (line.endsWith(WorkflowConstants.KW_BLOCK_OPEN)) {
-            currentStep = step;
-          }
-
-          if (isFinallyBlock) {
-            workflow.addFinallyStep(step);
-          } else {
-            if (parallelStepBuilder == null) {
-              workflow.addProcessingStep(step);
-            } else {
-              parallelStepBuilder.addSteps(step);
-            }
-          }
-        } else {
-          setDefaultExecutionData(currentStep, line);
-          setDefaultRollbackData(currentStep, line);
-        }
-      }
+    try {
+      return WorkflowParser.parse(new StringReader(Joiner.on('\n').join(trimmedWorkflowLines)), goalName);
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to read the workflow descriptor.", e);
     }
-
-    return workflow;
   }
 
   /**
@@ -130,71 +82,184 @@ public class WorkflowUtil {
    *          workflow descriptor.
    * @param goalName the name of the goal this workflow is designed for.
    * @return the parsed processing workflow.
-   * @deprecated Use {@link #parseWorkflow(List, String)} instead.
+   * @deprecated Use {@link #parseWorkflow(String, PluginDescriptor, Optional, Logger)} instead.
    */
   @Deprecated
   public static ProcessingWorkflow parseWorkflow(InputStream is, String goalName) {
-    List<String> trimmedWorkflowLines;
-    try {
-      trimmedWorkflowLines = getTrimmedWorkflowLines(is);
-    } catch (MojoExecutionException e) {
+    try (Reader reader = new InputStreamReader(is)) {
+      return WorkflowParser.parse(reader, goalName);
+    } catch (IOException e) {
       throw new RuntimeException("Unable to read the workflow descriptor from the provided input stream.", e);
     }
-    return parseWorkflow(trimmedWorkflowLines, goalName);
   }
 
-  private static String parseId(String line) {
-    int qualifierOpen = line.indexOf(WorkflowConstants.KW_QUALIFIER_OPEN);
-    int blockOpen = line.indexOf(WorkflowConstants.KW_BLOCK_OPEN);
-    int toIndex;
-    if (qualifierOpen > -1) {
-      toIndex = qualifierOpen;
-    } else if (blockOpen > -1) {
-      toIndex = blockOpen;
-    } else {
-      toIndex = line.length();
+  /**
+   * Reads, validates and parses the workflow of a goal in a single pass over the workflow descriptor. If no custom
+   * workflow descriptor is requested and the plugin ships the workflow in its {@link WorkflowCodec compiled form}, the
+   * compiled workflow is loaded instead.
+   *
+   * @param goalName the current goal being used
+   * @param pluginDescriptor the descriptor of the plugin calling
+   * @param customWorkflowDescriptor the workflow descriptor referring to a workflow file
+   * @param log the logger passed from the caller
+   * @return the parsed processing workflow.
+   * @throws MojoExecutionException in case of workflow file not existing or not being readable.
+   * @throws WorkflowSyntaxException if the workflow descriptor is syntactically invalid.
+   *
+   * @since 4.0.3
+   */
+  public static ProcessingWorkflow parseWorkflow(String goalName, PluginDescriptor pluginDescriptor,
+      Optional<File> customWorkflowDescriptor, Logger log) throws MojoExecutionException {
+    return parseWorkflow(goalName, pluginDescriptor, customWorkflowDescriptor, null, log);
+  }
+
+  /**
+   * Reads, validates and parses the workflow of a goal like {@link #parseWorkflow(String, PluginDescriptor, Optional,
+   * Logger)} but looks up custom workflows in the given cache first. Custom workflows are cached by the hash of the
+   * descriptor's content so that the same descriptor is parsed only once for all modules of the reactor. Included
+   * workflow fragments are cached the same way and are thus shared by the workflows of all goals. Cached workflows are
+   * only used if all of their fragments still resolve to the same location and content.
+   *
+   * @param goalName the current goal being used
+   * @param pluginDescriptor the descriptor of the plugin calling
+   * @param customWorkflowDescriptor the workflow descriptor referring to a workflow file
+   * @param cache the cache for parsed custom workflows, may be {@code null}.
+   * @param log the logger passed from the caller
+   * @return the parsed processing workflow.
+   * @throws MojoExecutionException in case of workflow file not existing or not being readable.
+   * @throws WorkflowSyntaxException if the workflow descriptor is syntactically invalid.
+   *
+   * @since 4.0.3
+   */
+  public static ProcessingWorkflow parseWorkflow(String goalName, PluginDescriptor pluginDescriptor,
+      Optional<File> customWorkflowDescriptor, WorkflowCache cache, Logger log) throws MojoExecutionException {
+    Optional<File> fragmentDirectory = Optional.absent();
+    if (customWorkflowDescriptor.isPresent()) {
+      fragmentDirectory = Optional.fromNullable(customWorkflowDescriptor.get().getAbsoluteFile().getParentFile());
+    }
+    DefaultWorkflowFragmentResolver fragmentResolver = new DefaultWorkflowFragmentResolver(fragmentDirectory, cache);
+
+    if (customWorkflowDescriptor.isPresent() && cache != null) {
+      byte[] content;
+      try (InputStream is = getWorkflowInputStream(goalName, pluginDescriptor, customWorkflowDescriptor, log)) {
+        content = ByteStreams.toByteArray(is);
+      } catch (IOException e) {
+        throw new MojoExecutionException("Unable to read the workflow of goal " + goalName, e);
+      }
+
+      HashCode contentHash = Hashing.sha256().hashBytes(content);
+      try {
+        WorkflowCache.Entry<ProcessingWorkflow> entry = cache.get(goalName, contentHash);
+        if (entry != null && fragmentResolver.isUpToDate(entry.getIncludedFragments())) {
+          log.debug("Using the cached workflow of goal '" + goalName + "' parsed from identical content.");
+          return entry.getValue();
+        }
+
+        ProcessingWorkflow workflow;
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(content))) {
+          workflow = WorkflowParser.parse(reader, goalName, fragmentResolver);
+        }
+        cache.put(goalName, contentHash, workflow, fragmentResolver.getIncludedFragments());
+        return workflow;
+      } catch (IOException e) {
+        throw new MojoExecutionException("Unable to read the workflow of goal " + goalName, e);
+      }
+    }
+
+    if (!customWorkflowDescriptor.isPresent()) {
+      Optional<ProcessingWorkflow> compiledWorkflow = loadCompiledWorkflow(goalName, pluginDescriptor, log);
+      if (compiledWorkflow.isPresent()) {
+        return compiledWorkflow.get();
+      }
+    }
+
+    InputStream is = getWorkflowInputStream(goalName, pluginDescriptor, customWorkflowDescriptor, log);
+    try (Reader reader = new InputStreamReader(is)) {
+      return WorkflowParser.parse(reader, goalName, fragmentResolver);
+    } catch (IOException e) {
+      throw new MojoExecutionException("Unable to read the workflow of goal " + goalName, e);
     }
-    return line.substring(0, toIndex).trim();
   }
 
-  private static Optional<String> parseQualifier(String line) {
-    String qualifier = null;
-    int qualifierOpen = line.indexOf(WorkflowConstants.KW_QUALIFIER_OPEN);
-    if (qualifierOpen > -1) {
-      int qualifierClose = line.indexOf(WorkflowConstants.KW_QUALIFIER_CLOSE, qualifierOpen);
-      qualifier = line.substring(qualifierOpen + 1, qualifierClose);
+  private static Optional<ProcessingWorkflow> loadCompiledWorkflow(String goalName, PluginDescriptor pluginDescriptor,
+      Logger log) {
+    String descriptorPath = DEFAULT_WORKFLOW_DIR + "/" + goalName;
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    URL compiledWorkflowUrl = classLoader.getResource(descriptorPath + WorkflowCodec.FILE_EXTENSION);
+    if (compiledWorkflowUrl == null) {
+      return Optional.absent();
+    }
+    try (InputStream in = new BufferedInputStream(compiledWorkflowUrl.openStream())) {
+      CompiledWorkflow compiledWorkflow = WorkflowCodec.decode(in);
+      // a compiled workflow that is packaged together with its descriptor has been compiled from it, only directories
+      // of incremental builds may contain descriptors that have been edited after the compilation
+      if (!isPackagedTogether(compiledWorkflowUrl, classLoader.getResource(descriptorPath))
+          && !isUpToDate(compiledWorkflow, descriptorPath)) {
+        log.debug("The compiled workflow of goal '" + goalName
+            + "' is outdated, falling back to the workflow descriptor.");
+        return Optional.absent();
+      }
+
+      log.info("Goal '" + pluginDescriptor.getGoalPrefix() + ':' + goalName
+          + "' will use the compiled default workflow packaged with the plugin.");
+      return Optional.of(compiledWorkflow.getWorkflow());
+    } catch (IOException | MojoExecutionException e) {
+      log.debug("Unable to load the compiled workflow of goal '" + goalName
+          + "', falling back to the workflow descriptor: " + e.getMessage());
+      return Optional.absent();
     }
-    return Optional.fromNullable(qualifier);
   }
 
-  private static void setDefaultExecutionData(SimpleWorkflowStep step, String line) {
-    if (line.startsWith(WorkflowConstants.KW_DATA)) {
-      int startIndex = line.indexOf(WorkflowConstants.KW_DATA_ASSIGNMENT) + 1;
-      step.setDefaultExecutionData(line.substring(startIndex).trim());
+  private static boolean isPackagedTogether(URL compiledWorkflowUrl, URL descriptorUrl) {
+    if (descriptorUrl == null || !"jar".equals(compiledWorkflowUrl.getProtocol())
+        || !"jar".equals(descriptorUrl.getProtocol())) {
+      return false;
     }
+    String compiledWorkflowPath = compiledWorkflowUrl.getPath();
+    String descriptorPath = descriptorUrl.getPath();
+    int separator = compiledWorkflowPath.indexOf("!/");
+    return separator > 0 && descriptorPath.startsWith(compiledWorkflowPath.substring(0, separator + 2));
   }
 
-  private static void setDefaultRollbackData(SimpleWorkflowStep step, String line) {
-    if (line.startsWith(WorkflowConstants.KW_ROLLBACK_DATA)) {
-      int startIndex = line.indexOf(WorkflowConstants.KW_DATA_ASSIGNMENT) + 1;
-      step.setDefaultRollbackData(line.substring(startIndex).trim());
+  private static boolean isUpToDate(CompiledWorkflow compiledWorkflow, String descriptorPath)
+      throws IOException, MojoExecutionException {
+    byte[] descriptor;
+    try (InputStream descriptorStream = getResourceStream(descriptorPath)) {
+      descriptor = ByteStreams.toByteArray(descriptorStream);
+    }
+    DefaultWorkflowFragmentResolver fragmentResolver = new DefaultWorkflowFragmentResolver(Optional.<File> absent(),
+        null);
+    List<byte[]> fragments = Lists.newArrayList();
+    for (String fragmentName : compiledWorkflow.getFragmentNames()) {
+      fragments.add(fragmentResolver.read(fragmentName));
     }
+    return Objects.equal(compiledWorkflow.getSourceHash(), WorkflowCodec.computeSourceHash(descriptor, fragments));
   }
 
-  public static void addExecutionContexts(ProcessingWorkflow workflow) {
+  /**
+   * Creates fresh execution contexts for all steps of a workflow. The contexts are initialized with the data declared
+   * in the workflow descriptor or passed as system properties.
+   *
+   * @param workflow the workflow to create the execution contexts for.
+   * @return the execution contexts mapped by the composite step ids.
+   * @since 4.0.3
+   */
+  public static Map<String, ExecutionContext> createExecutionContexts(ProcessingWorkflow workflow) {
+    Map<String, ExecutionContext> executionContexts = Maps.newHashMap();
     Iterable<WorkflowStep> steps = Iterables
         .unmodifiableIterable(Iterables.concat(workflow.getProcessingSteps(), workflow.getFinallySteps()));
     for (WorkflowStep step : steps) {
       if (step.isParallel()) {
         ParallelWorkflowStep parallelStep = (ParallelWorkflowStep) step;
         for (SimpleWorkflowStep simpleStep : parallelStep.getSteps()) {
-          workflow.addExecutionContext(simpleStep.getCompositeStepId(), createExecutionContext(simpleStep));
+          executionContexts.put(simpleStep.getCompositeStepId(), createExecutionContext(simpleStep));
         }
       } else {
         SimpleWorkflowStep simpleStep = (SimpleWorkflowStep) step;
-        workflow.addExecutionContext(simpleStep.getCompositeStepId(), createExecutionContext(simpleStep));
+        executionContexts.put(simpleStep.getCompositeStepId(), createExecutionContext(simpleStep));
       }
     }
+    return executionContexts;
   }
 
   private static ExecutionContext createExecutionContext(SimpleWorkflowStep step) {
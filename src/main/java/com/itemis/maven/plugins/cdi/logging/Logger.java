@@ -1,5 +1,7 @@
 package com.itemis.maven.plugins.cdi.logging;
 
+import java.util.function.Supplier;
+
 import org.apache.maven.plugin.logging.Log;
 
 public interface Logger extends Log {
@@ -13,4 +15,132 @@ public interface Logger extends Log {
   void disableLogTimestamps();
 
   boolean isTimestampedLoggingEnabled();
+
+  /**
+   * Logs the content of the supplier if debug logging is enabled. The supplier is not called otherwise.
+   *
+   * @since 4.0.3
+   */
+  default void debug(Supplier<? extends CharSequence> content) {
+    if (isDebugEnabled()) {
+      debug(content.get());
+    }
+  }
+
+  /**
+   * Logs the content of the supplier and the error if debug logging is enabled. The supplier is not called otherwise.
+   *
+   * @since 4.0.3
+   */
+  default void debug(Supplier<? extends CharSequence> content, Throwable error) {
+    if (isDebugEnabled()) {
+      debug(content.get(), error);
+    }
+  }
+
+  /**
+   * Logs the message {@link String#format(String, Object...) formatted} with the arguments if debug logging is
+   * enabled. The message is not formatted otherwise.<br>
+   * <br>
+   * Note that a call with a single {@link Throwable} argument, f.i. <code>warn("Unable to %s", e)</code>, does not
+   * bind to the format variant but to {@link #debug(CharSequence, Throwable)} and its counterparts, which log the
+   * unformatted message together with the error.
+   *
+   * @since 4.0.3
+   */
+  default void debug(String format, Object... args) {
+    if (isDebugEnabled()) {
+      debug(String.format(format, args));
+    }
+  }
+
+  /**
+   * @see #debug(Supplier)
+   * @since 4.0.3
+   */
+  default void info(Supplier<? extends CharSequence> content) {
+    if (isInfoEnabled()) {
+      info(content.get());
+    }
+  }
+
+  /**
+   * @see #debug(Supplier, Throwable)
+   * @since 4.0.3
+   */
+  default void info(Supplier<? extends CharSequence> content, Throwable error) {
+    if (isInfoEnabled()) {
+      info(content.get(), error);
+    }
+  }
+
+  /**
+   * @see #debug(String, Object...)
+   * @since 4.0.3
+   */
+  default void info(String format, Object... args) {
+    if (isInfoEnabled()) {
+      info(String.format(format, args));
+    }
+  }
+
+  /**
+   * @see #debug(Supplier)
+   * @since 4.0.3
+   */
+  default void warn(Supplier<? extends CharSequence> content) {
+    if (isWarnEnabled()) {
+      warn(content.get());
+    }
+  }
+
+  /**
+   * @see #debug(Supplier, Throwable)
+   * @since 4.0.3
+   */
+  default void warn(Supplier<? extends CharSequence> content, Throwable error) {
+    if (isWarnEnabled()) {
+      warn(content.get(), error);
+    }
+  }
+
+  /**
+   * @see #debug(String, Object...)
+   * @since 4.0.3
+   */
+  default void warn(String format, Object... args) {
+    if (isWarnEnabled()) {
+      warn(String.format(format, args));
+    }
+  }
+
+  /**
+   * @see #debug(Supplier)
+   * @since 4.0.3
+   */
+  default void error(Supplier<? extends CharSequence> content) {
+    if (isErrorEnabled()) {
+      error(content.get());
+    }
+  }
+
+  /**
+   * @see #debug(Supplier, Throwable)
+   * @since 4.0.3
+   */
+  default void error(Supplier<? extends CharSequence> content, Throwable error) {
+    if (isErrorEnabled()) {
+      error(content.get(), error);
+    }
+  }
+
+  /**
+   * @see #debug(String, Object...)
+   * @since 4.0.3
+   */
+  default void error(String format, Object... args) {
+    if (isErrorEnabled()) {
+      error(String.format(format, args));
+    }
+  }
 }
\ No newline at end of file
@@ -0,0 +1,118 @@
+package com.itemis.maven.plugins.cdi.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.AdaptiveThreadPool;
+
+public class AdaptiveThreadPoolTest {
+
+  @Test
+  public void testExecutesAllTasks() throws Exception {
+    AdaptiveThreadPool pool = new AdaptiveThreadPool(1, 4, new SystemStreamLog());
+    try {
+      final AtomicInteger executions = new AtomicInteger();
+      List<Future<Integer>> futures = Lists.newArrayList();
+      for (int i = 0; i < 20; i++) {
+        futures.add(pool.submit(new Callable<Integer>() {
+          @Override
+          public Integer call() throws Exception {
+            return executions.incrementAndGet();
+          }
+        }));
+      }
+      for (Future<Integer> future : futures) {
+        future.get(5, TimeUnit.SECONDS);
+      }
+      Assert.assertEquals(20, executions.get());
+      Assert.assertTrue(pool.getLargestPoolSize() <= 4);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testRunsTasksInParallel() throws Exception {
+    AdaptiveThreadPool pool = new AdaptiveThreadPool(2, 2, new SystemStreamLog());
+    try {
+      final CountDownLatch started = new CountDownLatch(2);
+      final CountDownLatch release = new CountDownLatch(1);
+      for (int i = 0; i < 2; i++) {
+        pool.execute(new Runnable() {
+          @Override
+          public void run() {
+            started.countDown();
+            try {
+              release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          }
+        });
+      }
+      Assert.assertTrue("Both tasks must run at the same time.", started.await(5, TimeUnit.SECONDS));
+      release.countDown();
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testMinThreadsGreaterThanMaxThreads() throws Exception {
+    AdaptiveThreadPool pool = new AdaptiveThreadPool(8, 2, new SystemStreamLog());
+    try {
+      Assert.assertEquals(2, pool.getMaximumPoolSize());
+      Assert.assertEquals(2, pool.getCorePoolSize());
+      Assert.assertEquals(Integer.valueOf(1), pool.submit(new Callable<Integer>() {
+        @Override
+        public Integer call() throws Exception {
+          return 1;
+        }
+      }).get(5, TimeUnit.SECONDS));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testNonPositiveBounds() {
+    AdaptiveThreadPool pool = new AdaptiveThreadPool(0, 0, new SystemStreamLog());
+    try {
+      Assert.assertEquals(1, pool.getMaximumPoolSize());
+      Assert.assertEquals(1, pool.getCorePoolSize());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testRestoresThreadCpuTimeFlag() throws Exception {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    if (!threadMXBean.isThreadCpuTimeSupported()) {
+      return;
+    }
+    boolean enabled = threadMXBean.isThreadCpuTimeEnabled();
+    threadMXBean.setThreadCpuTimeEnabled(false);
+    try {
+      AdaptiveThreadPool pool = new AdaptiveThreadPool(1, 2, new SystemStreamLog());
+      Assert.assertTrue(threadMXBean.isThreadCpuTimeEnabled());
+      pool.shutdown();
+      Assert.assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+      Assert.assertFalse("The pool must disable the thread CPU time measurement it enabled.",
+          threadMXBean.isThreadCpuTimeEnabled());
+    } finally {
+      threadMXBean.setThreadCpuTimeEnabled(enabled);
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package com.itemis.maven.plugins.cdi.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.weld.environment.se.Weld;
+import org.jboss.weld.environment.se.WeldContainer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.itemis.maven.plugins.cdi.internal.util.BeanProfiler;
+import com.itemis.maven.plugins.cdi.internal.util.BeanProfiler.BeanStats;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.Dependent;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
+
+public class BeanProfilerTest {
+
+  @Test
+  public void testProfileBeans() {
+    BeanProfiler profiler = new BeanProfiler();
+    Weld weld = new Weld(BeanProfilerTest.class.getName()).disableDiscovery().addExtension(profiler)
+        .addBeanClasses(Service.class, Repository.class, Factory.class);
+    try (WeldContainer container = weld.initialize()) {
+      container.select(Service.class).get();
+      Assert.assertEquals(Integer.valueOf(1), container.select(Integer.class).get());
+      Assert.assertEquals(Long.valueOf(2), container.select(Long.class).get());
+    }
+
+    BeanStats service = profiler.getStats(Service.class.getName()).get();
+    Assert.assertEquals(1, service.getInstances());
+    Assert.assertTrue(service.getConstructNanos() > 0);
+    Assert.assertTrue(service.getInjectNanos() > 0);
+    Assert.assertTrue(service.getPostConstructNanos() >= TimeUnit.MILLISECONDS.toNanos(5));
+    Assert.assertEquals(0, service.getProduceNanos());
+
+    // the repository is injected into the service and into the parameter of a producer method
+    Assert.assertEquals(2, profiler.getStats(Repository.class.getName()).get().getInstances());
+
+    // overloaded producer methods are profiled separately
+    BeanStats createInteger = profiler.getStats(Factory.class.getName() + "#create()").get();
+    Assert.assertEquals(1, createInteger.getInstances());
+    Assert.assertTrue(createInteger.getProduceNanos() > 0);
+    BeanStats createLong = profiler
+        .getStats(Factory.class.getName() + "#create(" + Repository.class.getTypeName() + ")").get();
+    Assert.assertEquals(1, createLong.getInstances());
+    Assert.assertTrue(createLong.getProduceNanos() > 0);
+
+    // each row contains five times (construct, inject, post-construct, produce, total)
+    Assert.assertEquals(5, countTimes(profiler.render(1)));
+    Assert.assertEquals(5 * profiler.size(), countTimes(profiler.render(100)));
+  }
+
+  private static int countTimes(String table) {
+    int count = 0;
+    for (int i = table.indexOf(" ms"); i >= 0; i = table.indexOf(" ms", i + 1)) {
+      count++;
+    }
+    return count;
+  }
+
+  @Dependent
+  public static class Repository {
+  }
+
+  @Dependent
+  public static class Service {
+    @Inject
+    Repository repository;
+
+    @PostConstruct
+    void init() {
+      try {
+        Thread.sleep(5);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @Dependent
+  public static class Factory {
+    @Produces
+    Integer create() {
+      return 1;
+    }
+
+    @Produces
+    Long create(Repository repository) {
+      return 2L;
+    }
+  }
+}
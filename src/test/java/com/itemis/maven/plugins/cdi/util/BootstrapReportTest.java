@@ -0,0 +1,51 @@
+package com.itemis.maven.plugins.cdi.util;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.jboss.weld.environment.se.Weld;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.itemis.maven.plugins.cdi.internal.util.BootstrapReport;
+import com.itemis.maven.plugins.cdi.internal.util.CDIUtil;
+
+public class BootstrapReportTest {
+
+  @Test
+  public void testAddAllClasses() throws Exception {
+    File folder = Files.createTempDirectory("classes").toFile();
+    File knownClass = new File(folder, "java/lang/String.class");
+    knownClass.getParentFile().mkdirs();
+    knownClass.createNewFile();
+    File unknownClass = new File(folder, "does/not/Exist.class");
+    unknownClass.getParentFile().mkdirs();
+    unknownClass.createNewFile();
+
+    BootstrapReport report = new BootstrapReport();
+    CDIUtil.addAllClasses(new Weld(), getClass().getClassLoader(), folder, new SystemStreamLog(), report);
+
+    Assert.assertEquals(1, report.getCount(BootstrapReport.PHASE_CLASS_ENUMERATION, "folders"));
+    Assert.assertEquals(1, report.getCount(BootstrapReport.PHASE_CLASS_LOADING, "classes loaded"));
+    Assert.assertEquals(1, report.getCount(BootstrapReport.PHASE_CLASS_LOADING, "classes failed to load"));
+    Assert.assertTrue(report.getNanos(BootstrapReport.PHASE_CLASS_LOADING) >= 0);
+    Assert.assertEquals(-1, report.getNanos(BootstrapReport.PHASE_STEP_VETOES));
+
+    String table = report.render();
+    Assert.assertTrue(table, table.indexOf(BootstrapReport.PHASE_CLASS_ENUMERATION) < table
+        .indexOf(BootstrapReport.PHASE_CLASS_LOADING));
+    Assert.assertTrue(table, table.contains("1 classes loaded, 1 classes failed to load"));
+  }
+
+  @Test
+  public void testDisabled() {
+    BootstrapReport report = BootstrapReport.disabled();
+    try (BootstrapReport.Phase phase = report.enter(BootstrapReport.PHASE_WELD_INITIALIZATION)) {
+      report.count(BootstrapReport.PHASE_WELD_INITIALIZATION, "beans", 1);
+    }
+    Assert.assertFalse(report.isEnabled());
+    Assert.assertEquals(-1, report.getNanos(BootstrapReport.PHASE_WELD_INITIALIZATION));
+    Assert.assertEquals(0, report.getCount(BootstrapReport.PHASE_WELD_INITIALIZATION, "beans"));
+  }
+}
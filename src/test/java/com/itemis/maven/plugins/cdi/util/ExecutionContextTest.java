@@ -0,0 +1,135 @@
+package com.itemis.maven.plugins.cdi.util;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.PluginParameterExpressionEvaluator;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.itemis.maven.plugins.cdi.ExecutionContext;
+import com.itemis.maven.plugins.cdi.ExpressionEvaluationCache;
+
+public class ExecutionContextTest {
+
+  @Test
+  public void testExpandProjectVariables_Lazy() {
+    CountingEvaluator evaluator = new CountingEvaluator();
+    ExpressionEvaluationCache cache = new ExpressionEvaluationCache(evaluator);
+    ExecutionContext context = ExecutionContext.builder("step").addData("constant")
+        .addData("version", "@{project.version}").addData("artifact", ExecutionContext.PROJ_VAR_AID)
+        .addRollbackData("v", "@{project.version}").build();
+
+    Assert.assertEquals("@{project.version}", context.getMappedDate("version"));
+    context.expandProjectVariables(cache);
+    Assert.assertEquals("Only the rollback data must be expanded immediately.", 1, evaluator.evaluations.get());
+
+    Assert.assertEquals("constant", Lists.newArrayList(context.getUnmappedData()).get(0));
+    Assert.assertEquals("${PROJECT.VERSION}", context.getMappedDate("version"));
+    Assert.assertEquals("${PROJECT.VERSION}", context.getMappedDate("version"));
+    Assert.assertEquals("${PROJECT.VERSION}", context.getMappedRollbackDate("v"));
+    Assert.assertNull(context.getMappedDate("unknown"));
+    Assert.assertEquals("Constants must not be evaluated and expressions only once.", 1, evaluator.evaluations.get());
+
+    cache.invalidate();
+    Assert.assertEquals("${PROJECT.ARTIFACTID}", context.getMappedDate("artifact"));
+    Assert.assertEquals("${PROJECT.VERSION}", context.getMappedDate("version"));
+    Assert.assertEquals("Expanded values must be retained by the context.", 2, evaluator.evaluations.get());
+  }
+
+  @Test
+  public void testExpandProjectVariables_SharedCache() {
+    CountingEvaluator evaluator = new CountingEvaluator();
+    ExpressionEvaluationCache cache = new ExpressionEvaluationCache(evaluator);
+    List<ExecutionContext> contexts = Lists.newArrayList();
+    for (int i = 0; i < 50; i++) {
+      ExecutionContext context = ExecutionContext.builder("step").setQualifier(String.valueOf(i))
+          .addData(ExecutionContext.PROJ_VAR_VERSION).build();
+      context.expandProjectVariables(cache);
+      contexts.add(context);
+    }
+
+    for (ExecutionContext context : contexts) {
+      Assert.assertEquals("${PROJECT.VERSION}", context.getUnmappedData().iterator().next());
+    }
+    Assert.assertEquals(1, evaluator.evaluations.get());
+  }
+
+  @Test
+  public void testNullData() {
+    ExecutionContext.Builder builder = ExecutionContext.builder("step");
+    try {
+      builder.addData("key", null);
+      Assert.fail("Null values must be rejected.");
+    } catch (NullPointerException e) {
+      Assert.assertEquals("The value of step data 'key' must not be null.", e.getMessage());
+    }
+    try {
+      builder.addRollbackData(null, "value");
+      Assert.fail("Null keys must be rejected.");
+    } catch (NullPointerException e) {
+      Assert.assertEquals("The key of rollback data must not be null.", e.getMessage());
+    }
+    try {
+      builder.addData("a", "b", null);
+      Assert.fail("Null values must be rejected.");
+    } catch (NullPointerException e) {
+      Assert.assertEquals("Step data must not be null.", e.getMessage());
+    }
+    try {
+      builder.addRollbackData((String) null);
+      Assert.fail("Null values must be rejected.");
+    } catch (NullPointerException e) {
+      Assert.assertEquals("Rollback data must not be null.", e.getMessage());
+    }
+    Assert.assertTrue(builder.build().getMappedDataKeys().isEmpty());
+  }
+
+  @Test
+  public void testMappedData() {
+    ExecutionContext.Builder builder = ExecutionContext.builder("step");
+    for (int i = 0; i < 20; i++) {
+      builder.addData("key" + i, "value" + i);
+    }
+    ExecutionContext context = builder.build();
+
+    Assert.assertTrue(context.hasMappedData());
+    Assert.assertFalse(context.hasMappedRollbackData());
+    Assert.assertFalse(context.hasUnmappedData());
+    Assert.assertEquals(20, context.getMappedDataKeys().size());
+    Assert.assertTrue(context.getMappedDataKeys().contains("key13"));
+    Assert.assertTrue(context.containsMappedDate("key19"));
+    Assert.assertEquals("value7", context.getMappedDate("key7"));
+    Assert.assertNull(context.getMappedDate("key20"));
+    Assert.assertTrue(context.getMappedRollbackDataKeys().isEmpty());
+    Assert.assertFalse(context.getUnmappedRollbackData().iterator().hasNext());
+  }
+
+  private static class CountingEvaluator extends PluginParameterExpressionEvaluator {
+    private final AtomicInteger evaluations = new AtomicInteger();
+
+    public CountingEvaluator() {
+      super(new MavenSession(null, null, new DefaultMavenExecutionRequest(), new DefaultMavenExecutionResult()),
+          new MojoExecution(createMojoDescriptor()));
+    }
+
+    private static MojoDescriptor createMojoDescriptor() {
+      MojoDescriptor mojoDescriptor = new MojoDescriptor();
+      mojoDescriptor.setPluginDescriptor(new PluginDescriptor());
+      return mojoDescriptor;
+    }
+
+    @Override
+    public Object evaluate(String expression) {
+      this.evaluations.incrementAndGet();
+      return expression.toUpperCase();
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package com.itemis.maven.plugins.cdi.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.itemis.maven.plugins.cdi.internal.util.FlightRecorderEvent;
+
+public class FlightRecorderEventTest {
+
+  @Test
+  public void testDisabledWithoutRecording() {
+    Assert.assertFalse(FlightRecorderEvent.STEP_EXECUTION.isEnabled());
+    try (FlightRecorderEvent.Event event = FlightRecorderEvent.STEP_EXECUTION.begin("goal", "step")) {
+      // nothing to do
+    }
+  }
+
+  @Test
+  public void testEnabledWhileRecording() throws Exception {
+    Class<?> recordingClass;
+    try {
+      recordingClass = Class.forName("jdk.jfr.Recording");
+    } catch (ClassNotFoundException e) {
+      // JFR is not available in this JVM
+      return;
+    }
+
+    AutoCloseable recording = (AutoCloseable) recordingClass.newInstance();
+    try {
+      recordingClass.getMethod("start").invoke(recording);
+      Assert.assertTrue(FlightRecorderEvent.ROLLBACK.isEnabled());
+      try (FlightRecorderEvent.Event event = FlightRecorderEvent.ROLLBACK.begin("step", "rollback")) {
+        // nothing to do
+      }
+    } finally {
+      recording.close();
+    }
+    Assert.assertFalse(FlightRecorderEvent.ROLLBACK.isEnabled());
+  }
+}
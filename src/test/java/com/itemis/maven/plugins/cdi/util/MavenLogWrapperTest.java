@@ -0,0 +1,94 @@
+package com.itemis.maven.plugins.cdi.util;
+
+import java.util.List;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.itemis.maven.plugins.cdi.logging.MavenLogWrapper;
+
+public class MavenLogWrapperTest {
+  private static final String TIMESTAMP = "\\d{2}:\\d{2}:\\d{2},\\d{3}  ";
+
+  @Test
+  public void testWrapContent() {
+    RecordingLog recordingLog = new RecordingLog();
+    MavenLogWrapper log = new MavenLogWrapper(recordingLog);
+    log.info("plain");
+    log.setContextClass(MavenLogWrapperTest.class);
+    log.info("with context");
+    log.enableLogTimestamps();
+    log.info("with timestamp");
+    log.unsetContext();
+    log.info("timestamp only");
+
+    Assert.assertEquals("plain", recordingLog.messages.get(0));
+    Assert.assertEquals("[MavenLogWrapperTest] with context", recordingLog.messages.get(1));
+    Assert.assertTrue(recordingLog.messages.get(2),
+        recordingLog.messages.get(2).matches(TIMESTAMP + "\\[MavenLogWrapperTest\\] with timestamp"));
+    Assert.assertTrue(recordingLog.messages.get(3), recordingLog.messages.get(3).matches(TIMESTAMP + "timestamp only"));
+  }
+
+  @Test
+  public void testLazyLogging() {
+    RecordingLog recordingLog = new RecordingLog();
+    MavenLogWrapper log = new MavenLogWrapper(recordingLog);
+    log.debug(() -> {
+      throw new AssertionError("The supplier must not be called if debug logging is disabled.");
+    });
+    log.debug("%s", new Object() {
+      @Override
+      public String toString() {
+        throw new AssertionError("The message must not be formatted if debug logging is disabled.");
+      }
+    });
+    log.info(() -> "supplied");
+    log.setContextClass(MavenLogWrapperTest.class);
+    log.info("%d steps of %s", 3, "goal");
+
+    Assert.assertEquals(Lists.newArrayList("supplied", "[MavenLogWrapperTest] 3 steps of goal"),
+        recordingLog.messages);
+  }
+
+  @Test
+  public void testConcurrentTimestamps() throws InterruptedException {
+    final RecordingLog recordingLog = new RecordingLog();
+    List<Thread> threads = Lists.newArrayList();
+    for (int i = 0; i < 4; i++) {
+      threads.add(new Thread(new Runnable() {
+        @Override
+        public void run() {
+          MavenLogWrapper log = new MavenLogWrapper(recordingLog);
+          log.enableLogTimestamps();
+          for (int j = 0; j < 1000; j++) {
+            log.info("message");
+          }
+        }
+      }));
+    }
+    for (Thread t : threads) {
+      t.start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+
+    Assert.assertEquals(4000, recordingLog.messages.size());
+    for (String message : recordingLog.messages) {
+      Assert.assertTrue(message, message.matches(TIMESTAMP + "message"));
+    }
+  }
+
+  private static class RecordingLog extends SystemStreamLog {
+    private final List<String> messages = Lists.newArrayList();
+
+    @Override
+    public void info(CharSequence content) {
+      synchronized (this.messages) {
+        this.messages.add(content.toString());
+      }
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package com.itemis.maven.plugins.cdi.util;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.SimpleWorkflowStep;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.StepDurationHistory;
+
+public class StepDurationHistoryTest {
+
+  @Test
+  public void testRecord() throws Exception {
+    StepDurationHistory history = load(Files.createTempDirectory("workflow-state").toFile());
+    Assert.assertEquals(-1, history.getExpectedDuration("step"));
+
+    history.record("step", 100);
+    Assert.assertEquals(100, history.getExpectedDuration("step"));
+    history.record("step", 200);
+    Assert.assertEquals(150, history.getExpectedDuration("step"));
+    history.record("step", 50);
+    Assert.assertEquals(100, history.getExpectedDuration("step"));
+  }
+
+  @Test
+  public void testSortByExpectedDuration() throws Exception {
+    StepDurationHistory history = load(Files.createTempDirectory("workflow-state").toFile());
+    history.record("short", 10);
+    history.record("long", 1000);
+    history.record("medium[1]", 100);
+    history.record("medium[2]", 100);
+
+    List<SimpleWorkflowStep> steps = Lists.newArrayList(step("short", null), step("medium", "1"),
+        step("unknown", null), step("long", null), step("medium", "2"));
+    history.sortByExpectedDuration(steps);
+
+    // unknown steps are expected to run longest, steps with equal durations retain their order
+    List<String> ids = Lists.newArrayList();
+    for (SimpleWorkflowStep step : steps) {
+      ids.add(step.getCompositeStepId());
+    }
+    Assert.assertEquals(Lists.newArrayList("unknown", "long", "medium[1]", "medium[2]", "short"), ids);
+  }
+
+  @Test
+  public void testSaveAndLoad() throws Exception {
+    File stateDirectory = new File(Files.createTempDirectory("workflow-state").toFile(), "nested");
+    StepDurationHistory history = load(stateDirectory);
+    history.save();
+    Assert.assertFalse("An unmodified history must not be written.", history.getHistoryFile().exists());
+
+    history.record("step1", 10);
+    history.record("step2[q]", 20);
+    history.save();
+    Assert.assertTrue(history.getHistoryFile().isFile());
+
+    StepDurationHistory loaded = load(stateDirectory);
+    Assert.assertEquals(10, loaded.getExpectedDuration("step1"));
+    Assert.assertEquals(20, loaded.getExpectedDuration("step2[q]"));
+
+    // the history is only written again after new durations have been recorded
+    Files.delete(history.getHistoryFile().toPath());
+    history.save();
+    Assert.assertFalse(history.getHistoryFile().exists());
+    history.record("step1", 30);
+    history.save();
+    Assert.assertEquals(20, load(stateDirectory).getExpectedDuration("step1"));
+  }
+
+  @Test
+  public void testLoadInvalidDurations() throws Exception {
+    File stateDirectory = Files.createTempDirectory("workflow-state").toFile();
+    Files.write(new File(stateDirectory, "goal.durations").toPath(), "step1=abc\nstep2=42\n".getBytes(StandardCharsets.UTF_8));
+
+    StepDurationHistory history = load(stateDirectory);
+    Assert.assertEquals(-1, history.getExpectedDuration("step1"));
+    Assert.assertEquals(42, history.getExpectedDuration("step2"));
+  }
+
+  private StepDurationHistory load(File stateDirectory) {
+    return StepDurationHistory.load(stateDirectory, "goal", new SystemStreamLog());
+  }
+
+  private SimpleWorkflowStep step(String id, String qualifier) {
+    return new SimpleWorkflowStep(id, Optional.fromNullable(qualifier));
+  }
+}
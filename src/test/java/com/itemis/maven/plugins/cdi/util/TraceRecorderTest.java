@@ -0,0 +1,77 @@
+package com.itemis.maven.plugins.cdi.util;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.itemis.maven.plugins.cdi.WorkflowEvent;
+import com.itemis.maven.plugins.cdi.internal.util.TraceRecorder;
+import com.itemis.maven.plugins.cdi.internal.util.TraceRecorder.Span;
+
+public class TraceRecorderTest {
+
+  @Test
+  public void testWrite() throws Exception {
+    TraceRecorder trace = new TraceRecorder();
+    try (Span span = trace.begin(TraceRecorder.CATEGORY_CDI, "scan \"quoted\".jar")) {
+      Thread.sleep(1);
+    }
+
+    trace.workflowStarted(new WorkflowEvent("goal", null, null));
+    final WorkflowEvent started = new WorkflowEvent("goal", "step[1]", null);
+    Thread worker = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        trace.stepStarted(started);
+        trace.stepFinished(new WorkflowEvent("goal", "step[1]", null));
+      }
+    }, "worker-1");
+    worker.start();
+    worker.join();
+    trace.workflowFinished(new WorkflowEvent("goal", null, null));
+    Assert.assertEquals(3, trace.size());
+
+    String json = write(trace);
+    Assert.assertTrue(json, json.contains("\"name\":\"scan \\\"quoted\\\".jar\",\"cat\":\"cdi\",\"ph\":\"X\""));
+    Assert.assertTrue(json, json.contains("\"name\":\"step[1]\",\"cat\":\"workflow\""));
+    Assert.assertTrue(json, json.contains("\"tid\":" + worker.getId() + ",\"args\":{\"name\":\"worker-1\"}"));
+    Assert.assertTrue(json, json.contains("\"name\":\"workflow goal\""));
+  }
+
+  @Test
+  public void testFinallySpan() throws Exception {
+    TraceRecorder trace = new TraceRecorder();
+    trace.workflowStarted(new WorkflowEvent("goal", null, null));
+    trace.finallyStarted(new WorkflowEvent("goal", null, null));
+    Thread.sleep(5);
+    trace.workflowFinished(new WorkflowEvent("goal", null, null));
+    Assert.assertEquals(2, trace.size());
+
+    String json = write(trace);
+    Matcher m = Pattern.compile("\"name\":\"finally\".*?\"dur\":(\\d+)").matcher(json);
+    Assert.assertTrue(json, m.find());
+    Assert.assertTrue("The finally span must last until the end of the workflow.",
+        Long.parseLong(m.group(1)) >= TimeUnit.MILLISECONDS.toMicros(5));
+  }
+
+  @Test
+  public void testDisabled() throws IOException {
+    TraceRecorder trace = TraceRecorder.disabled();
+    Assert.assertFalse(trace.isEnabled());
+    try (Span span = trace.begin(TraceRecorder.CATEGORY_CDI, "weld.initialize")) {
+      // nothing to do
+    }
+    Assert.assertEquals(0, trace.size());
+  }
+
+  private String write(TraceRecorder trace) throws IOException {
+    StringWriter w = new StringWriter();
+    trace.write(w);
+    return w.toString();
+  }
+}
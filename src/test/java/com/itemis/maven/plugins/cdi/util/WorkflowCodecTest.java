@@ -0,0 +1,51 @@
+package com.itemis.maven.plugins.cdi.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.ProcessingWorkflow;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowCodec;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowCodec.CompiledWorkflow;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowParser;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowUtil;
+
+public class WorkflowCodecTest {
+
+  @Test
+  public void testEncodeDecode() throws IOException, MojoExecutionException {
+    ProcessingWorkflow workflow;
+    try (Reader reader = new InputStreamReader(WorkflowUtil.getResourceStream("workflows/try-finally_complex"))) {
+      workflow = WorkflowParser.parse(reader, "wf");
+    }
+
+    HashCode sourceHash = Hashing.sha256().hashInt(42);
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    WorkflowCodec.encode(workflow, sourceHash, ImmutableList.of("fragment1", "fragment2"), os);
+    CompiledWorkflow compiledWorkflow = WorkflowCodec.decode(new ByteArrayInputStream(os.toByteArray()));
+    ProcessingWorkflow decoded = compiledWorkflow.getWorkflow();
+
+    Assert.assertEquals(sourceHash, compiledWorkflow.getSourceHash());
+    Assert.assertEquals(ImmutableList.of("fragment1", "fragment2"), compiledWorkflow.getFragmentNames());
+
+    Assert.assertEquals("wf", decoded.getGoal());
+    Assert.assertEquals(workflow.getProcessingSteps(), decoded.getProcessingSteps());
+    Assert.assertEquals(workflow.getFinallySteps(), decoded.getFinallySteps());
+    Assert.assertEquals(workflow.getProcessingSteps().toString(), decoded.getProcessingSteps().toString());
+    Assert.assertEquals(workflow.getFinallySteps().toString(), decoded.getFinallySteps().toString());
+  }
+
+  @Test(expected = IOException.class)
+  public void testDecode_NoCompiledWorkflow() throws IOException {
+    WorkflowCodec.decode(new ByteArrayInputStream("step1\nstep2".getBytes("UTF-8")));
+  }
+}
@@ -0,0 +1,91 @@
+package com.itemis.maven.plugins.cdi.util;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.itemis.maven.plugins.cdi.DataKey;
+import com.itemis.maven.plugins.cdi.WorkflowData;
+
+public class WorkflowDataTest {
+  private static final DataKey<String> VERSION = DataKey.of("version", String.class);
+
+  @Test
+  public void testPutAndGet() {
+    WorkflowData data = new WorkflowData();
+    Assert.assertFalse(data.get(VERSION).isPresent());
+
+    data.put(VERSION, "1.0.0");
+    Assert.assertEquals("1.0.0", data.get(VERSION).get());
+    Assert.assertEquals("1.0.0", data.get(DataKey.of("version", String.class)).get());
+    Assert.assertFalse("Keys of different types must not share data.",
+        data.get(DataKey.of("version", Object.class)).isPresent());
+  }
+
+  @Test
+  public void testComputeIfAbsent_ComputesOnce() throws Exception {
+    final WorkflowData data = new WorkflowData();
+    final AtomicInteger computations = new AtomicInteger();
+    final CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<String>> results = Lists.newArrayList();
+      for (int i = 0; i < 8; i++) {
+        results.add(executor.submit(new Callable<String>() {
+          @Override
+          public String call() throws Exception {
+            start.await();
+            return data.computeIfAbsent(VERSION, new Callable<String>() {
+              @Override
+              public String call() throws Exception {
+                computations.incrementAndGet();
+                Thread.sleep(50);
+                return "1.0.0";
+              }
+            });
+          }
+        }));
+      }
+      start.countDown();
+      for (Future<String> result : results) {
+        Assert.assertEquals("1.0.0", result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+    Assert.assertEquals("The data must be computed only once.", 1, computations.get());
+    Assert.assertEquals("1.0.0", data.get(VERSION).get());
+  }
+
+  @Test
+  public void testComputeIfAbsent_Failure() throws Exception {
+    WorkflowData data = new WorkflowData();
+    try {
+      data.computeIfAbsent(VERSION, new Callable<String>() {
+        @Override
+        public String call() throws Exception {
+          throw new MojoExecutionException("failed");
+        }
+      });
+      Assert.fail("The failure of the computation must be propagated.");
+    } catch (MojoExecutionException e) {
+      Assert.assertEquals("failed", e.getMessage());
+    }
+    Assert.assertFalse(data.get(VERSION).isPresent());
+    Assert.assertEquals("1.0.1", data.computeIfAbsent(VERSION, new Callable<String>() {
+      @Override
+      public String call() throws Exception {
+        return "1.0.1";
+      }
+    }));
+  }
+}
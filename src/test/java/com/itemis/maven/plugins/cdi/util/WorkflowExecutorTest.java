@@ -0,0 +1,739 @@
+package com.itemis.maven.plugins.cdi.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.PluginParameterExpressionEvaluator;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.itemis.maven.plugins.cdi.CDIMojoProcessingStep;
+import com.itemis.maven.plugins.cdi.Channel;
+import com.itemis.maven.plugins.cdi.ExecutionContext;
+import com.itemis.maven.plugins.cdi.Subtask;
+import com.itemis.maven.plugins.cdi.WorkflowEvent;
+import com.itemis.maven.plugins.cdi.WorkflowListener;
+import com.itemis.maven.plugins.cdi.annotations.CostClass;
+import com.itemis.maven.plugins.cdi.annotations.ProcessingStep;
+import com.itemis.maven.plugins.cdi.annotations.RollbackOnError;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.ContentionMonitor;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.ProcessingWorkflow;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.StepStatistics;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowCheckpoint;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowExecutor;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowParser;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowUtil;
+
+public class WorkflowExecutorTest {
+
+  @Test
+  public void testListeners() throws Exception {
+    RecordingListener listener = new RecordingListener();
+    WorkflowExecutor executor = createExecutor("a\nparallel {\n  b[1]\n}");
+    executor.setListeners(ImmutableList.of(listener));
+    executor.execute();
+
+    Assert.assertEquals(ImmutableList.of("workflowStarted", "stepStarted a", "stepFinished a", "stepStarted b[1]",
+        "stepFinished b[1]", "workflowFinished"), listener.events);
+  }
+
+  @Test
+  public void testListeners_Failure() throws Exception {
+    RecordingListener listener = new RecordingListener();
+    WorkflowExecutor executor = createExecutor("try {\n  a\n  fail\n} finally {\n  b\n}");
+    executor.setListeners(ImmutableList.of(new WorkflowListener() {
+      @Override
+      public void stepStarted(WorkflowEvent event) {
+        throw new IllegalStateException("Listener failures must not affect the workflow.");
+      }
+    }, listener));
+    try {
+      executor.execute();
+      Assert.fail("The workflow was expected to fail.");
+    } catch (MojoFailureException e) {
+      // expected
+    }
+
+    Assert.assertEquals(ImmutableList.of("workflowStarted", "stepStarted a", "stepFinished a", "stepStarted fail",
+        "stepFailed fail MojoFailureException", "rollbackStarted MojoFailureException",
+        "stepRollbackStarted fail MojoFailureException", "stepRollbackFinished fail MojoFailureException",
+        "stepRollbackStarted a MojoFailureException", "stepRollbackFinished a MojoFailureException",
+        "rollbackFinished MojoFailureException", "finallyStarted", "stepStarted b", "stepFinished b",
+        "workflowFinished MojoFailureException"), listener.events);
+  }
+
+  @Test
+  public void testStepStatistics() throws Exception {
+    StepStatistics statistics = new StepStatistics();
+    WorkflowExecutor executor = createExecutor("a\nparallel {\n  b[1]\n  b[2]\n}");
+    executor.setListeners(ImmutableList.of(statistics));
+    executor.execute();
+
+    Assert.assertEquals(3, statistics.size());
+    String table = statistics.render();
+    Assert.assertTrue(table, table.contains("CPU/WALL"));
+    Assert.assertTrue(table, table.contains("b[2]"));
+    Assert.assertTrue(table, table.contains(" ms"));
+  }
+
+  @Test
+  public void testStepStatistics_RestoresMeasurements() throws Exception {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    if (!threadMXBean.isCurrentThreadCpuTimeSupported()) {
+      return;
+    }
+    boolean enabled = threadMXBean.isThreadCpuTimeEnabled();
+    threadMXBean.setThreadCpuTimeEnabled(false);
+    try {
+      StepStatistics statistics = new StepStatistics();
+      WorkflowExecutor executor = createExecutor("a");
+      executor.setListeners(ImmutableList.of(statistics));
+      executor.execute();
+
+      Assert.assertEquals(1, statistics.size());
+      Assert.assertFalse("The thread CPU time measurement must be restored after the workflow.",
+          threadMXBean.isThreadCpuTimeEnabled());
+    } finally {
+      threadMXBean.setThreadCpuTimeEnabled(enabled);
+    }
+  }
+
+  @Test
+  public void testContentionMonitor() throws Exception {
+    ContentionMonitor monitor = new ContentionMonitor(1);
+    WorkflowExecutor executor = createExecutor("parallel {\n  lock[1]\n  lock[2]\n}");
+    executor.setListeners(ImmutableList.of(monitor));
+    executor.execute();
+
+    Assert.assertEquals(2, monitor.size());
+    String report = monitor.render(5);
+    Assert.assertTrue(report, report.contains("lock[1]"));
+    Assert.assertTrue(report, report.contains("BLOCKED TIME"));
+  }
+
+  @Test(timeout = 10000)
+  public void testStallDetection() throws Exception {
+    final List<String> warnings = Lists.newArrayList();
+    final StallingStep stalling = new StallingStep();
+    ProcessingWorkflow workflow = WorkflowParser.parse(new StringReader("stall"), "test");
+    WorkflowExecutor executor = new WorkflowExecutor(workflow, WorkflowUtil.createExecutionContexts(workflow),
+        ImmutableMap.<String, CDIMojoProcessingStep> of("stall", stalling), new SystemStreamLog() {
+          @Override
+          public void warn(CharSequence content) {
+            synchronized (warnings) {
+              warnings.add(content.toString());
+            }
+            // the step blocks until the stall has been reported
+            stalling.release.countDown();
+          }
+        }, createExpressionEvaluator());
+    executor.setStallTimeout(5, TimeUnit.MILLISECONDS);
+    executor.execute();
+
+    synchronized (warnings) {
+      Assert.assertFalse(warnings.isEmpty());
+      Assert.assertTrue(warnings.get(0), warnings.get(0).contains("'stall' running for"));
+      Assert.assertTrue(warnings.get(0), warnings.get(0).contains("StallingStep.execute"));
+    }
+  }
+
+  @Test
+  public void testRollbackDataExpandedBeforeExecution() throws Exception {
+    ProcessingWorkflow workflow = WorkflowParser.parse(
+        new StringReader("bump {\n  rollbackData = version=>@{project.version}\n}\nfail"), "test");
+    BumpVersionStep bump = new BumpVersionStep();
+    VersionEvaluator evaluator = new VersionEvaluator();
+    bump.evaluator = evaluator;
+    WorkflowExecutor executor = new WorkflowExecutor(workflow, WorkflowUtil.createExecutionContexts(workflow),
+        ImmutableMap.<String, CDIMojoProcessingStep> of("bump", bump, "fail", new FailingStep()),
+        new SystemStreamLog(), evaluator);
+    try {
+      executor.execute();
+      Assert.fail("The workflow was expected to fail.");
+    } catch (MojoFailureException e) {
+      // expected
+    }
+
+    Assert.assertEquals("2.0", evaluator.version);
+    Assert.assertEquals("The rollback data must refer to the state before the step execution.", "1.0",
+        bump.rolledBackVersion);
+  }
+
+  @Test
+  public void testCheckpoint_ResumeAfterFailure() throws Exception {
+    File stateDirectory = Files.createTempDirectory("workflow-state").toFile();
+    String descriptor = "count[1]\ncount[2]\nflaky";
+    CountingStep count = new CountingStep();
+    FlakyStep flaky = new FlakyStep();
+    Map<String, CDIMojoProcessingStep> steps = ImmutableMap.<String, CDIMojoProcessingStep> of("count", count,
+        "flaky", flaky);
+
+    WorkflowExecutor executor = createExecutor(descriptor, steps);
+    executor.setCheckpoint(WorkflowCheckpoint.open(stateDirectory, "test", false, new SystemStreamLog()));
+    try {
+      executor.execute();
+      Assert.fail("The workflow was expected to fail.");
+    } catch (MojoFailureException e) {
+      // expected
+    }
+    Assert.assertEquals(ImmutableList.of("count[1]", "count[2]"), count.executions);
+    Assert.assertTrue("The completed steps must not be rolled back.", count.rollbacks.isEmpty());
+    Assert.assertTrue(new File(stateDirectory, "test.checkpoint").isFile());
+
+    flaky.fail = false;
+    executor = createExecutor(descriptor, steps);
+    executor.setCheckpoint(WorkflowCheckpoint.open(stateDirectory, "test", true, new SystemStreamLog()));
+    executor.execute();
+    Assert.assertEquals("The completed steps must not be executed again.", ImmutableList.of("count[1]", "count[2]"),
+        count.executions);
+    Assert.assertEquals(2, flaky.executions);
+  }
+
+  @Test
+  public void testCheckpoint_ExecutionDataExpandedBeforeExecution() throws Exception {
+    File stateDirectory = Files.createTempDirectory("workflow-state").toFile();
+    ProcessingWorkflow workflow = WorkflowParser.parse(
+        new StringReader("bump {\n  data = version=>@{project.version}\n}\nflaky"), "test");
+    BumpVersionStep bump = new BumpVersionStep();
+    VersionEvaluator evaluator = new VersionEvaluator();
+    bump.evaluator = evaluator;
+    FlakyStep flaky = new FlakyStep();
+    Map<String, CDIMojoProcessingStep> steps = ImmutableMap.<String, CDIMojoProcessingStep> of("bump", bump,
+        "flaky", flaky);
+
+    WorkflowExecutor executor = new WorkflowExecutor(workflow, WorkflowUtil.createExecutionContexts(workflow), steps,
+        new SystemStreamLog(), evaluator);
+    executor.setCheckpoint(WorkflowCheckpoint.open(stateDirectory, "test", false, new SystemStreamLog()));
+    try {
+      executor.execute();
+      Assert.fail("The workflow was expected to fail.");
+    } catch (MojoFailureException e) {
+      // expected
+    }
+
+    // a new Maven session starts with the original project state, the step has not read its data
+    evaluator.version = "1.0";
+    flaky.fail = false;
+    executor = new WorkflowExecutor(workflow, WorkflowUtil.createExecutionContexts(workflow), steps,
+        new SystemStreamLog(), evaluator);
+    executor.setCheckpoint(WorkflowCheckpoint.open(stateDirectory, "test", true, new SystemStreamLog()));
+    executor.execute();
+    Assert.assertEquals("The recorded data must refer to the state before the step execution.", "1.0",
+        evaluator.version);
+    Assert.assertEquals(2, flaky.executions);
+  }
+
+  @Test
+  public void testCheckpoint_NonResumableStepsAreExecutedAgain() throws Exception {
+    File stateDirectory = Files.createTempDirectory("workflow-state").toFile();
+    String descriptor = "count\nsetup\nflaky";
+    CountingStep count = new CountingStep();
+    NonResumableStep setup = new NonResumableStep();
+    FlakyStep flaky = new FlakyStep();
+    Map<String, CDIMojoProcessingStep> steps = ImmutableMap.<String, CDIMojoProcessingStep> of("count", count,
+        "setup", setup, "flaky", flaky);
+
+    WorkflowExecutor executor = createExecutor(descriptor, steps);
+    executor.setCheckpoint(WorkflowCheckpoint.open(stateDirectory, "test", false, new SystemStreamLog()));
+    try {
+      executor.execute();
+      Assert.fail("The workflow was expected to fail.");
+    } catch (MojoFailureException e) {
+      // expected
+    }
+
+    flaky.fail = false;
+    executor = createExecutor(descriptor, steps);
+    executor.setCheckpoint(WorkflowCheckpoint.open(stateDirectory, "test", true, new SystemStreamLog()));
+    executor.execute();
+    Assert.assertEquals(ImmutableList.of("count"), count.executions);
+    Assert.assertEquals("Non-resumable steps must be executed again when resuming.", 2, setup.executions);
+  }
+
+  @Test
+  public void testCheckpoint_DiscardedOnSuccess() throws Exception {
+    File stateDirectory = Files.createTempDirectory("workflow-state").toFile();
+    CountingStep count = new CountingStep();
+    WorkflowExecutor executor = createExecutor("count[1]\ncount[2]",
+        ImmutableMap.<String, CDIMojoProcessingStep> of("count", count));
+    WorkflowCheckpoint checkpoint = WorkflowCheckpoint.open(stateDirectory, "test", false, new SystemStreamLog());
+    executor.setCheckpoint(checkpoint);
+    executor.execute();
+
+    Assert.assertEquals(ImmutableList.of("count[1]", "count[2]"), count.executions);
+    Assert.assertFalse("The journal must be discarded after a successful execution.",
+        checkpoint.getJournalFile().exists());
+  }
+
+  @Test
+  public void testCostClassRouting() throws Exception {
+    CpuStep cpu = new CpuStep();
+    IoStep io = new IoStep();
+    MainThreadStep main = new MainThreadStep();
+    DefaultCostStep other = new DefaultCostStep();
+    WorkflowExecutor executor = createExecutor("parallel {\n  cpu\n  io\n  main\n  other\n}",
+        ImmutableMap.<String, CDIMojoProcessingStep> of("cpu", cpu, "io", io, "main", main, "other", other));
+    executor.execute();
+
+    Assert.assertTrue(cpu.threadName, cpu.threadName.startsWith("workflow-cpu-"));
+    Assert.assertTrue(io.threadName, io.threadName.startsWith("workflow-io-"));
+    Assert.assertEquals(Thread.currentThread().getName(), main.threadName);
+    Assert.assertFalse(other.threadName, Thread.currentThread().getName().equals(other.threadName));
+    Assert.assertFalse(other.threadName, other.threadName.startsWith("workflow-cpu-"));
+    Assert.assertFalse(other.threadName, other.threadName.startsWith("workflow-io-"));
+  }
+
+  @Test
+  public void testSubtasks() throws Exception {
+    ForkingStep forking = new ForkingStep();
+    WorkflowExecutor executor = createExecutor("fork",
+        ImmutableMap.<String, CDIMojoProcessingStep> of("fork", forking));
+    executor.execute();
+
+    Assert.assertEquals(Integer.valueOf(10), forking.joinedResult);
+    Assert.assertEquals("The executor must wait for the subtasks that have not been joined.", 20,
+        forking.unjoinedExecutions.get());
+  }
+
+  @Test
+  public void testSubtasks_FailureOfUnjoinedSubtask() throws Exception {
+    ForkingStep forking = new ForkingStep();
+    forking.failUnjoined = true;
+    WorkflowExecutor executor = createExecutor("fork",
+        ImmutableMap.<String, CDIMojoProcessingStep> of("fork", forking));
+    try {
+      executor.execute();
+      Assert.fail("The workflow was expected to fail.");
+    } catch (MojoFailureException e) {
+      Assert.assertEquals("subtask failed", e.getMessage());
+    }
+    Assert.assertTrue("The step must be rolled back if one of its subtasks failed.", forking.rolledBack);
+  }
+
+  @Test
+  public void testSubtasks_OnlyAvailableDuringExecution() throws Exception {
+    ForkingStep forking = new ForkingStep();
+    WorkflowExecutor executor = createExecutor("fork",
+        ImmutableMap.<String, CDIMojoProcessingStep> of("fork", forking));
+    executor.execute();
+
+    try {
+      forking.context.getSubtasks();
+      Assert.fail("Subtasks must not be available after the step execution.");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testPipeline() throws Exception {
+    ProducerStep producer = new ProducerStep();
+    ConsumerStep consumer = new ConsumerStep();
+    WorkflowExecutor executor = createExecutor("pipeline {\n  produce\n  consume\n}",
+        ImmutableMap.<String, CDIMojoProcessingStep> of("produce", producer, "consume", consumer));
+    executor.execute();
+
+    // the producer does not close the channel, this is done by the executor once the producer has finished
+    Assert.assertEquals(1000, consumer.received);
+    Assert.assertEquals(500500, consumer.sum);
+  }
+
+  @Test(timeout = 10000)
+  public void testPipeline_FailureAbortsChannels() throws Exception {
+    ProducerStep producer = new ProducerStep();
+    ConsumerStep consumer = new ConsumerStep();
+    consumer.failAfter = 1;
+    WorkflowExecutor executor = createExecutor("pipeline {\n  produce\n  consume\n}",
+        ImmutableMap.<String, CDIMojoProcessingStep> of("produce", producer, "consume", consumer));
+    try {
+      executor.execute();
+      Assert.fail("The workflow was expected to fail.");
+    } catch (MojoFailureException e) {
+      // the failure of the consumer must win over the failure of the released producer
+      Assert.assertEquals("consumer failed", e.getMessage());
+    }
+
+    Assert.assertTrue("The blocked producer must be released with an exception.",
+        producer.failure instanceof MojoExecutionException);
+    Assert.assertTrue(String.valueOf(producer.failure.getCause()),
+        producer.failure.getCause() instanceof MojoFailureException);
+  }
+
+  @Test(timeout = 10000)
+  public void testChannels_OnlyAvailableDuringExecution() throws Exception {
+    ProducerStep producer = new ProducerStep();
+    // without a concurrent consumer the producer must not exceed the capacity of the channel
+    producer.count = 3;
+    ConsumerStep consumer = new ConsumerStep();
+    WorkflowExecutor executor = createExecutor("produce\nconsume",
+        ImmutableMap.<String, CDIMojoProcessingStep> of("produce", producer, "consume", consumer));
+    executor.execute();
+
+    Assert.assertEquals("Channels must be closed once the producing step has finished.", 3, consumer.received);
+    try {
+      consumer.context.getChannel("numbers", Integer.class);
+      Assert.fail("Channels must not be available after the step execution.");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  private WorkflowExecutor createExecutor(String descriptor, Map<String, CDIMojoProcessingStep> processingSteps)
+      throws IOException {
+    ProcessingWorkflow workflow = WorkflowParser.parse(new StringReader(descriptor), "test");
+    return new WorkflowExecutor(workflow, WorkflowUtil.createExecutionContexts(workflow), processingSteps,
+        new SystemStreamLog(), createExpressionEvaluator());
+  }
+
+  private WorkflowExecutor createExecutor(String descriptor) throws IOException {
+    ProcessingWorkflow workflow = WorkflowParser.parse(new StringReader(descriptor), "test");
+    Map<String, ExecutionContext> executionContexts = WorkflowUtil.createExecutionContexts(workflow);
+    Map<String, CDIMojoProcessingStep> processingSteps = ImmutableMap.<String, CDIMojoProcessingStep> of("a",
+        new StepA(), "b", new StepB(), "fail", new FailingStep(), "lock", new LockingStep());
+    return new WorkflowExecutor(workflow, executionContexts, processingSteps, new SystemStreamLog(),
+        createExpressionEvaluator());
+  }
+
+  private static PluginParameterExpressionEvaluator createExpressionEvaluator() {
+    return new PluginParameterExpressionEvaluator(
+        new MavenSession(null, null, new DefaultMavenExecutionRequest(), new DefaultMavenExecutionResult()),
+        new MojoExecution(createMojoDescriptor()));
+  }
+
+  private static MojoDescriptor createMojoDescriptor() {
+    MojoDescriptor mojoDescriptor = new MojoDescriptor();
+    mojoDescriptor.setPluginDescriptor(new PluginDescriptor());
+    return mojoDescriptor;
+  }
+
+  private static class RecordingListener implements WorkflowListener {
+    private final List<String> events = Lists.newArrayList();
+
+    private synchronized void record(String callback, WorkflowEvent event) {
+      Assert.assertTrue(event.getNanoTime() > 0);
+      long nowMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+      Assert.assertTrue(Math.abs(nowMicros - event.getTimestampMicros()) < TimeUnit.SECONDS.toMicros(10));
+      Assert.assertEquals("test", event.getGoalName());
+      StringBuilder sb = new StringBuilder(callback);
+      if (event.getCompositeStepId().isPresent()) {
+        sb.append(' ').append(event.getCompositeStepId().get());
+      }
+      if (event.getError().isPresent()) {
+        sb.append(' ').append(event.getError().get().getClass().getSimpleName());
+      }
+      this.events.add(sb.toString());
+    }
+
+    @Override
+    public void workflowStarted(WorkflowEvent event) {
+      record("workflowStarted", event);
+    }
+
+    @Override
+    public void workflowFinished(WorkflowEvent event) {
+      record("workflowFinished", event);
+    }
+
+    @Override
+    public void stepStarted(WorkflowEvent event) {
+      record("stepStarted", event);
+    }
+
+    @Override
+    public void stepFinished(WorkflowEvent event) {
+      record("stepFinished", event);
+    }
+
+    @Override
+    public void stepFailed(WorkflowEvent event) {
+      record("stepFailed", event);
+    }
+
+    @Override
+    public void rollbackStarted(WorkflowEvent event) {
+      record("rollbackStarted", event);
+    }
+
+    @Override
+    public void stepRollbackStarted(WorkflowEvent event) {
+      record("stepRollbackStarted", event);
+    }
+
+    @Override
+    public void stepRollbackFinished(WorkflowEvent event) {
+      record("stepRollbackFinished", event);
+    }
+
+    @Override
+    public void rollbackFinished(WorkflowEvent event) {
+      record("rollbackFinished", event);
+    }
+
+    @Override
+    public void finallyStarted(WorkflowEvent event) {
+      record("finallyStarted", event);
+    }
+  }
+
+  @ProcessingStep(id = "a", requiresOnline = false)
+  public static class StepA implements CDIMojoProcessingStep {
+    @Override
+    public void execute(ExecutionContext context) throws MojoExecutionException, MojoFailureException {
+    }
+
+    @RollbackOnError
+    public void rollback() {
+    }
+  }
+
+  @ProcessingStep(id = "b", requiresOnline = false)
+  public static class StepB implements CDIMojoProcessingStep {
+    @Override
+    public void execute(ExecutionContext context) throws MojoExecutionException, MojoFailureException {
+    }
+  }
+
+  @ProcessingStep(id = "fail", requiresOnline = false)
+  public static class FailingStep implements CDIMojoProcessingStep {
+    @Override
+    public void execute(ExecutionContext context) throws MojoExecutionException, MojoFailureException {
+      throw new MojoFailureException("failed");
+    }
+  }
+
+  @ProcessingStep(id = "count", requiresOnline = false)
+  public static class CountingStep implements CDIMojoProcessingStep {
+    private final List<String> executions = Lists.newArrayList();
+    private final List<String> rollbacks = Lists.newArrayList();
+
+    @Override
+    public void execute(ExecutionContext context) throws MojoExecutionException, MojoFailureException {
+      this.executions.add(context.getCompositeStepId());
+    }
+
+    @RollbackOnError
+    public void rollback(ExecutionContext context) {
+      this.rollbacks.add(context.getCompositeStepId());
+    }
+  }
+
+  @ProcessingStep(id = "setup", requiresOnline = false, resumable = false)
+  public static class NonResumableStep implements CDIMojoProcessingStep {
+    private int executions;
+
+    @Override
+    public void execute(ExecutionContext context) throws MojoExecutionException, MojoFailureException {
+      this.executions++;
+    }
+  }
+
+  @ProcessingStep(id = "flaky", requiresOnline = false)
+  public static class FlakyStep implements CDIMojoProcessingStep {
+    private boolean fail = true;
+    private int executions;
+
+    @Override
+    public void execute(ExecutionContext context) throws MojoExecutionException, MojoFailureException {
+      this.executions++;
+      if (this.fail) {
+        throw new MojoFailureException("failed");
+      }
+    }
+  }
+
+  private abstract static class ThreadRecordingStep implements CDIMojoProcessingStep {
+    protected volatile String threadName;
+
+    @Override
+    public void execute(ExecutionContext context) throws MojoExecutionException, MojoFailureException {
+      this.threadName = Thread.currentThread().getName();
+    }
+  }
+
+  @ProcessingStep(id = "cpu", requiresOnline = false, costClass = CostClass.CPU)
+  public static class CpuStep extends ThreadRecordingStep {
+  }
+
+  @ProcessingStep(id = "io", requiresOnline = false, costClass = CostClass.IO)
+  public static class IoStep extends ThreadRecordingStep {
+  }
+
+  @ProcessingStep(id = "main", requiresOnline = false, costClass = CostClass.MAIN_THREAD)
+  public static class MainThreadStep extends ThreadRecordingStep {
+  }
+
+  @ProcessingStep(id = "other", requiresOnline = false)
+  public static class DefaultCostStep extends ThreadRecordingStep {
+  }
+
+  @ProcessingStep(id = "fork", requiresOnline = false)
+  public static class ForkingStep implements CDIMojoProcessingStep {
+    private final AtomicInteger unjoinedExecutions = new AtomicInteger();
+    private boolean failUnjoined;
+    private Integer joinedResult;
+    private boolean rolledBack;
+    private ExecutionContext context;
+
+    @Override
+    public void execute(ExecutionContext context) throws MojoExecutionException, MojoFailureException {
+      this.context = context;
+      List<Subtask<Integer>> subtasks = Lists.newArrayList();
+      for (int i = 0; i < 4; i++) {
+        final int value = i + 1;
+        subtasks.add(context.getSubtasks().fork(new Callable<Integer>() {
+          @Override
+          public Integer call() throws Exception {
+            return value;
+          }
+        }));
+      }
+      int sum = 0;
+      for (Subtask<Integer> subtask : subtasks) {
+        sum += subtask.join();
+      }
+      this.joinedResult = sum;
+
+      for (int i = 0; i < 20; i++) {
+        context.getSubtasks().fork(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            Thread.sleep(1);
+            ForkingStep.this.unjoinedExecutions.incrementAndGet();
+            if (ForkingStep.this.failUnjoined) {
+              throw new MojoFailureException("subtask failed");
+            }
+            return null;
+          }
+        });
+      }
+    }
+
+    @RollbackOnError
+    public void rollback() {
+      this.rolledBack = true;
+    }
+  }
+
+  @ProcessingStep(id = "produce", requiresOnline = false)
+  public static class ProducerStep implements CDIMojoProcessingStep {
+    private int count = 1000;
+    private volatile MojoExecutionException failure;
+
+    @Override
+    public void execute(ExecutionContext context) throws MojoExecutionException, MojoFailureException {
+      Channel<Integer> numbers = context.getChannel("numbers", Integer.class, 4);
+      try {
+        for (int i = 1; i <= this.count; i++) {
+          numbers.send(i);
+        }
+      } catch (MojoExecutionException e) {
+        this.failure = e;
+        throw e;
+      }
+    }
+  }
+
+  @ProcessingStep(id = "consume", requiresOnline = false)
+  public static class ConsumerStep implements CDIMojoProcessingStep {
+    private int failAfter = -1;
+    private int received;
+    private long sum;
+    private ExecutionContext context;
+
+    @Override
+    public void execute(ExecutionContext context) throws MojoExecutionException, MojoFailureException {
+      this.context = context;
+      Channel<Integer> numbers = context.getChannel("numbers", Integer.class, 4);
+      for (Optional<Integer> i = numbers.receive(); i.isPresent(); i = numbers.receive()) {
+        this.received++;
+        this.sum += i.get();
+        if (this.received == this.failAfter) {
+          throw new MojoFailureException("consumer failed");
+        }
+      }
+    }
+  }
+
+  @ProcessingStep(id = "bump", requiresOnline = false)
+  public static class BumpVersionStep implements CDIMojoProcessingStep {
+    private VersionEvaluator evaluator;
+    private String rolledBackVersion;
+
+    @Override
+    public void execute(ExecutionContext context) throws MojoExecutionException, MojoFailureException {
+      this.evaluator.version = "2.0";
+    }
+
+    @RollbackOnError
+    public void rollback(ExecutionContext context) {
+      this.rolledBackVersion = context.getMappedRollbackDate("version");
+    }
+  }
+
+  private static class VersionEvaluator extends PluginParameterExpressionEvaluator {
+    private volatile String version = "1.0";
+
+    public VersionEvaluator() {
+      super(new MavenSession(null, null, new DefaultMavenExecutionRequest(), new DefaultMavenExecutionResult()),
+          new MojoExecution(createMojoDescriptor()));
+    }
+
+    @Override
+    public Object evaluate(String expression) {
+      return "${project.version}".equals(expression) ? this.version : expression;
+    }
+  }
+
+  @ProcessingStep(id = "stall", requiresOnline = false)
+  public static class StallingStep implements CDIMojoProcessingStep {
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Override
+    public void execute(ExecutionContext context) throws MojoExecutionException, MojoFailureException {
+      try {
+        this.release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @ProcessingStep(id = "lock", requiresOnline = false)
+  public static class LockingStep implements CDIMojoProcessingStep {
+    private static final Object LOCK = new Object();
+
+    @Override
+    public void execute(ExecutionContext context) throws MojoExecutionException, MojoFailureException {
+      synchronized (LOCK) {
+        try {
+          Thread.sleep(20);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package com.itemis.maven.plugins.cdi.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.itemis.maven.plugins.cdi.exception.WorkflowSyntaxException;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.DefaultWorkflowFragmentResolver;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.ParallelWorkflowStep;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.ProcessingWorkflow;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.SimpleWorkflowStep;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowCache;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowFragmentResolver;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowParser;
+
+public class WorkflowParserTest {
+
+  @Test
+  public void testParse() throws IOException {
+    ProcessingWorkflow workflow = parse("# comment\n" //
+        + "try {\n" //
+        + "  init[a]{\n" //
+        + "    data = x, y=>@{project.version}\n" //
+        + "    rollbackData=z\n" //
+        + "  }\n" //
+        + "  parallel {\n" //
+        + "    check1 # trailing comment\n" //
+        + "    check2[b]\n" //
+        + "  }\n" //
+        + "} finally {\n" //
+        + "  cleanup\n" //
+        + "}\n");
+
+    Assert.assertEquals(2, workflow.getProcessingSteps().size());
+    SimpleWorkflowStep init = (SimpleWorkflowStep) workflow.getProcessingSteps().get(0);
+    Assert.assertEquals("init[a]", init.getCompositeStepId());
+    Assert.assertEquals("x, y=>@{project.version}", init.getDefaultExecutionData().get());
+    Assert.assertEquals("z", init.getDefaultRollbackData().get());
+
+    ParallelWorkflowStep parallel = (ParallelWorkflowStep) workflow.getProcessingSteps().get(1);
+    Assert.assertEquals(2, parallel.getSteps().size());
+    Assert.assertTrue(workflow.containsStep("check2"));
+
+    Assert.assertEquals(1, workflow.getFinallySteps().size());
+    Assert.assertEquals("cleanup", workflow.getFinallySteps().get(0).getStepId());
+  }
+
+  @Test
+  public void testParse_ErrorPosition() throws IOException {
+    assertSyntaxError("step1\nstep2 {\n  data = x\n  foo\n}", 4, 3);
+    assertSyntaxError("step1\n  step2[x\n", 2, 8);
+    assertSyntaxError("try {\n  step1\n}\n", 4, 1);
+    assertSyntaxError("step1\ntry {\n}\n", 2, 1);
+    assertSyntaxError("try {\n} finally {\n  parallel {\n  }\n}", 3, 3);
+  }
+
+  @Test
+  public void testParse_ErrorMessage() throws IOException {
+    try {
+      parse("step1\nstep2 {\n  data = x\n  foo\n}");
+      Assert.fail("Expected a syntax error.");
+    } catch (WorkflowSyntaxException e) {
+      Assert.assertEquals("Invalid workflow descriptor of goal 'test': Expected 'data' or 'rollbackData' within the "
+          + "data block of step 'step2' but found 'foo' (line 4, column 3)", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testParse_Include() throws IOException {
+    File dir = Files.createTempDirectory("workflows").toFile();
+    write(new File(dir, "checks"), "parallel {\n  check1\n  check2\n}\ninclude cleanup\n");
+    write(new File(dir, "cleanup"), "cleanup\n");
+    WorkflowCache cache = WorkflowCache.get(null);
+
+    ProcessingWorkflow workflow = WorkflowParser.parse(
+        new StringReader("try {\n  init\n  include checks\n} finally {\n  include cleanup\n}"), "test",
+        new DefaultWorkflowFragmentResolver(Optional.of(dir), cache));
+    Assert.assertEquals(3, workflow.getProcessingSteps().size());
+    Assert.assertTrue(workflow.getProcessingSteps().get(1).isParallel());
+    Assert.assertEquals("cleanup", ((SimpleWorkflowStep) workflow.getProcessingSteps().get(2)).getStepId());
+    Assert.assertEquals("cleanup", workflow.getFinallySteps().get(0).getStepId());
+
+    ProcessingWorkflow other = WorkflowParser.parse(new StringReader("include checks"), "other",
+        new DefaultWorkflowFragmentResolver(Optional.of(dir), cache));
+    Assert.assertSame(workflow.getProcessingSteps().get(1), other.getProcessingSteps().get(0));
+  }
+
+  @Test
+  public void testParse_IncludeChangedNestedFragment() throws IOException {
+    File dir = Files.createTempDirectory("workflows").toFile();
+    write(new File(dir, "outer"), "step1\ninclude inner\n");
+    write(new File(dir, "inner"), "step2\n");
+    WorkflowCache cache = WorkflowCache.get(null);
+
+    ProcessingWorkflow workflow = WorkflowParser.parse(new StringReader("include outer"), "test",
+        new DefaultWorkflowFragmentResolver(Optional.of(dir), cache));
+    Assert.assertEquals("step2", ((SimpleWorkflowStep) workflow.getProcessingSteps().get(1)).getStepId());
+
+    // the content of the outer fragment is unchanged but the fragment it includes is not
+    write(new File(dir, "inner"), "step3\n");
+    DefaultWorkflowFragmentResolver resolver = new DefaultWorkflowFragmentResolver(Optional.of(dir), cache);
+    workflow = WorkflowParser.parse(new StringReader("include outer"), "test", resolver);
+    Assert.assertEquals("step3", ((SimpleWorkflowStep) workflow.getProcessingSteps().get(1)).getStepId());
+
+    // nested fragments of cached fragments are reported as well
+    resolver = new DefaultWorkflowFragmentResolver(Optional.of(dir), cache);
+    WorkflowParser.parse(new StringReader("include outer"), "test", resolver);
+    Assert.assertEquals(ImmutableList.of("outer", "inner"), resolver.getResolvedFragments());
+  }
+
+  @Test
+  public void testParse_IncludeErrors() throws IOException {
+    File dir = Files.createTempDirectory("workflows").toFile();
+    write(new File(dir, "a"), "step1\ninclude b\n");
+    write(new File(dir, "b"), "include a\n");
+    write(new File(dir, "parallel"), "parallel {\n  step1\n}\n");
+    DefaultWorkflowFragmentResolver resolver = new DefaultWorkflowFragmentResolver(Optional.of(dir), null);
+
+    // the cycle is reported at the include of fragment b
+    assertSyntaxError("step1\n  include a", resolver, 1, 1);
+    assertSyntaxError("step1\ninclude unknown", resolver, 2, 1);
+    assertSyntaxError("include\nstep1", resolver, 2, 1);
+    assertSyntaxError("try {\n} finally {\n  include parallel\n}", resolver, 3, 3);
+    assertSyntaxError("parallel {\n  include parallel\n}", resolver, 2, 3);
+  }
+
+  private void assertSyntaxError(String descriptor, int line, int column) throws IOException {
+    assertSyntaxError(descriptor, new DefaultWorkflowFragmentResolver(Optional.<File> absent(), null), line, column);
+  }
+
+  private void assertSyntaxError(String descriptor, WorkflowFragmentResolver resolver, int line, int column)
+      throws IOException {
+    try {
+      WorkflowParser.parse(new StringReader(descriptor), "test", resolver);
+      Assert.fail("Expected a syntax error for descriptor: " + descriptor);
+    } catch (WorkflowSyntaxException e) {
+      Assert.assertEquals(e.getMessage(), line, e.getLine());
+      Assert.assertEquals(e.getMessage(), column, e.getColumn());
+    }
+  }
+
+  private void write(File file, String content) throws IOException {
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    file.deleteOnExit();
+  }
+
+  private ProcessingWorkflow parse(String descriptor) throws IOException {
+    return WorkflowParser.parse(new StringReader(descriptor), "test");
+  }
+}
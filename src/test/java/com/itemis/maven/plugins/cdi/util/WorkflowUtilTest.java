@@ -1,24 +1,44 @@
 package com.itemis.maven.plugins.cdi.util;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugin.logging.SystemStreamLog;
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.google.common.base.Optional;
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
 import com.itemis.maven.plugins.cdi.CDIMojoProcessingStep;
 import com.itemis.maven.plugins.cdi.ExecutionContext;
 import com.itemis.maven.plugins.cdi.annotations.ProcessingStep;
 import com.itemis.maven.plugins.cdi.internal.util.workflow.ParallelWorkflowStep;
 import com.itemis.maven.plugins.cdi.internal.util.workflow.ProcessingWorkflow;
 import com.itemis.maven.plugins.cdi.internal.util.workflow.SimpleWorkflowStep;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowCache;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowCodec;
+import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowParser;
 import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowStep;
 import com.itemis.maven.plugins.cdi.internal.util.workflow.WorkflowUtil;
+import com.itemis.maven.plugins.cdi.logging.MavenLogWrapper;
 
 public class WorkflowUtilTest {
 
@@ -58,6 +78,23 @@ public class WorkflowUtilTest {
     }
   }
 
+  @Test
+  public void testParseWorkflow_Pipeline() throws MojoExecutionException {
+    ProcessingWorkflow workflow = WorkflowUtil.parseWorkflow(getTrimmedWorkflowLines("pipeline"), "wf2");
+
+    Assert.assertEquals(3, workflow.getProcessingSteps().size());
+    WorkflowStep pipelineStep = workflow.getProcessingSteps().get(0);
+    Assert.assertTrue("The first processing step should be a parallel one.", pipelineStep.isParallel());
+    ParallelWorkflowStep s = (ParallelWorkflowStep) pipelineStep;
+    Assert.assertTrue("The first processing step should be a pipeline.", s.isPipeline());
+    Assert.assertEquals(2, s.getSteps().size());
+
+    // step ids starting with the pipeline keyword must not open a pipeline block
+    WorkflowStep step = workflow.getProcessingSteps().get(1);
+    Assert.assertFalse(step.isParallel());
+    Assert.assertEquals("pipelineCheck", ((SimpleWorkflowStep) step).getStepId());
+  }
+
   @Test
   public void testParseWorkflow_Sequential_Qualifiers() throws MojoExecutionException {
     ProcessingWorkflow workflow = WorkflowUtil.parseWorkflow(getTrimmedWorkflowLines("sequential_qualifiers"), "wf3");
@@ -217,6 +254,94 @@ public class WorkflowUtilTest {
     WorkflowUtil.parseWorkflow(getTrimmedWorkflowLines("__not_existing__"), "wf8");
   }
 
+  @Test
+  public void testParseWorkflow_Cached() throws Exception {
+    File descriptor = new File(
+        Thread.currentThread().getContextClassLoader().getResource("workflows/parallel").toURI());
+    WorkflowCache cache = WorkflowCache.get(null);
+    MavenLogWrapper log = new MavenLogWrapper(new SystemStreamLog());
+
+    ProcessingWorkflow workflow = WorkflowUtil.parseWorkflow("wf", new PluginDescriptor(), Optional.of(descriptor),
+        cache, log);
+    Assert.assertSame("The workflow should have been taken from the cache.", workflow,
+        WorkflowUtil.parseWorkflow("wf", new PluginDescriptor(), Optional.of(descriptor), cache, log));
+    Assert.assertNotSame("Workflows of different goals must not be shared.", workflow,
+        WorkflowUtil.parseWorkflow("wf2", new PluginDescriptor(), Optional.of(descriptor), cache, log));
+
+    // execution contexts are created per execution
+    Map<String, ExecutionContext> contexts = WorkflowUtil.createExecutionContexts(workflow);
+    Assert.assertEquals(6, contexts.size());
+    Assert.assertNotSame(contexts.get("check1"), WorkflowUtil.createExecutionContexts(workflow).get("check1"));
+  }
+
+  @Test
+  public void testParseWorkflow_Compiled() throws Exception {
+    File classes = Files.createTempDirectory("classes").toFile();
+    File workflows = new File(classes, WorkflowUtil.DEFAULT_WORKFLOW_DIR);
+    workflows.mkdirs();
+    byte[] descriptor = "a\ninclude fragment".getBytes(StandardCharsets.UTF_8);
+    Files.write(new File(workflows, "goal").toPath(), descriptor);
+    File fragment = new File(workflows, "fragment");
+    Files.write(fragment.toPath(), "b".getBytes(StandardCharsets.UTF_8));
+
+    // the compiled form differs from the descriptor to tell which one is used
+    ProcessingWorkflow compiled = WorkflowParser.parse(new StringReader("compiled"), "goal");
+    HashCode sourceHash = WorkflowCodec.computeSourceHash(descriptor,
+        ImmutableList.of("b".getBytes(StandardCharsets.UTF_8)));
+    try (OutputStream os = new FileOutputStream(new File(workflows, "goal" + WorkflowCodec.FILE_EXTENSION))) {
+      WorkflowCodec.encode(compiled, sourceHash, ImmutableList.of("fragment"), os);
+    }
+
+    ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+    Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[] { classes.toURI().toURL() }));
+    try {
+      MavenLogWrapper log = new MavenLogWrapper(new SystemStreamLog());
+      ProcessingWorkflow workflow = WorkflowUtil.parseWorkflow("goal", new PluginDescriptor(),
+          Optional.<File> absent(), null, log);
+      Assert.assertEquals(ImmutableList.of("compiled"), getStepIds(workflow));
+
+      Files.write(fragment.toPath(), "c".getBytes(StandardCharsets.UTF_8));
+      workflow = WorkflowUtil.parseWorkflow("goal", new PluginDescriptor(), Optional.<File> absent(), null, log);
+      Assert.assertEquals("An outdated compiled workflow must not be used.", ImmutableList.of("a", "c"),
+          getStepIds(workflow));
+    } finally {
+      Thread.currentThread().setContextClassLoader(contextClassLoader);
+    }
+  }
+
+  @Test
+  public void testParseWorkflow_CompiledInJar() throws Exception {
+    File jar = File.createTempFile("plugin", ".jar");
+    jar.deleteOnExit();
+    ProcessingWorkflow compiled = WorkflowParser.parse(new StringReader("compiled"), "goal");
+    try (JarOutputStream os = new JarOutputStream(new FileOutputStream(jar))) {
+      os.putNextEntry(new ZipEntry(WorkflowUtil.DEFAULT_WORKFLOW_DIR + "/goal"));
+      os.write("a".getBytes(StandardCharsets.UTF_8));
+      os.putNextEntry(new ZipEntry(WorkflowUtil.DEFAULT_WORKFLOW_DIR + "/goal" + WorkflowCodec.FILE_EXTENSION));
+      // the source hash does not match the descriptor to tell whether it is checked
+      WorkflowCodec.encode(compiled, HashCode.fromInt(0), ImmutableList.<String> of(), os);
+    }
+
+    ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+    try (URLClassLoader classLoader = new URLClassLoader(new URL[] { jar.toURI().toURL() })) {
+      Thread.currentThread().setContextClassLoader(classLoader);
+      ProcessingWorkflow workflow = WorkflowUtil.parseWorkflow("goal", new PluginDescriptor(),
+          Optional.<File> absent(), null, new MavenLogWrapper(new SystemStreamLog()));
+      Assert.assertEquals("A compiled workflow packaged with its descriptor must be used without checking the hash.",
+          ImmutableList.of("compiled"), getStepIds(workflow));
+    } finally {
+      Thread.currentThread().setContextClassLoader(contextClassLoader);
+    }
+  }
+
+  private static List<String> getStepIds(ProcessingWorkflow workflow) {
+    List<String> ids = Lists.newArrayList();
+    for (WorkflowStep step : workflow.getProcessingSteps()) {
+      ids.add(((SimpleWorkflowStep) step).getStepId());
+    }
+    return ids;
+  }
+
   private List<String> getTrimmedWorkflowLines(String name) throws MojoExecutionException {
     return WorkflowUtil.getTrimmedWorkflowLines(WorkflowUtil.getResourceStream("workflows/" + name));
   }